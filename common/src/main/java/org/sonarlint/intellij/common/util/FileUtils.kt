@@ -21,16 +21,24 @@ package org.sonarlint.intellij.common.util
 
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.fileChooser.FileElement
+import com.intellij.openapi.progress.ProcessCanceledException
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.project.ProjectCoreUtil
 import com.intellij.openapi.roots.GeneratedSourcesFilter.isGeneratedSourceByAnyFilter
+import com.intellij.openapi.roots.ProjectFileIndex
 import com.intellij.openapi.roots.ProjectRootManager
+import com.intellij.openapi.roots.ProjectRootModificationTracker
 import com.intellij.openapi.util.io.FileUtilRt
 import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import java.util.concurrent.ConcurrentHashMap
 import org.sonarlint.intellij.common.analysis.FileExclusionContributor
 import org.sonarlint.intellij.common.ui.ReadActionUtils.Companion.computeReadActionSafely
 import org.sonarlint.intellij.common.ui.SonarLintConsole
 
+private const val VALIDITY_CHECKS_CHUNK_SIZE = 500
+
 object FileUtils {
 
     // To be used with iterateContent, because it already skips ignored and excluded files
@@ -58,15 +66,9 @@ object FileUtils {
         try {
             val fileIndex = ProjectRootManager.getInstance(project).fileIndex
             val toSkip = computeReadActionSafely(file, project) {
-                (!ApplicationManager.getApplication().isUnitTestMode && !file.isDirectory && FileUtilRt.isTooLarge(file.length))
-                    || FileElement.isArchive(file)
-                    || !fileIndex.isInContent(file)
-                    || fileIndex.isInLibrarySource(file)
-                    || ProjectCoreUtil.isProjectOrWorkspaceFile(file)
-                    || isGeneratedSourceByAnyFilter(file, project)
-                    || isRazorFile(file)
-                    || ".idea" == file.parent.name
-                    || isExcludedFromEP(file, project)
+                shouldSkipWithExtensiveChecks(file, project, fileIndex) { reason ->
+                    SonarLintConsole.get(project).debug("File ${file.name} is excluded, reason: $reason")
+                }
             }
 
             return false == toSkip
@@ -76,19 +78,140 @@ object FileUtils {
         }
     }
 
+    /**
+     * Same checks as [isFileValidForSonarLintWithExtensiveChecks], for many files at once (e.g. a batch of file events).
+     * Files are checked in chunks, each in a single read action, and are returned in their input order. Files under an
+     * excluded, library or generated directory are rejected without further checks. Whether a directory is one of them
+     * is remembered until the project roots change, so that the following batches only look it up. Files excluded by
+     * extensions are logged once per reason instead of once per file. A file whose checks fail is rejected alone, the
+     * other files of its chunk are still checked.
+     */
+    fun filterValidForSonarLintWithExtensiveChecks(files: Collection<VirtualFile>, project: Project): List<VirtualFile> {
+        if (files.isEmpty()) {
+            return emptyList()
+        }
+        val validFiles = ArrayList<VirtualFile>(files.size)
+        val exclusionCountByReason = HashMap<String?, Int>()
+        try {
+            val fileIndex = ProjectRootManager.getInstance(project).fileIndex
+            val rejectedDirectories = rejectedDirectoriesOf(project)
+            files.distinct().chunked(VALIDITY_CHECKS_CHUNK_SIZE).forEach { chunk ->
+                // Non-blocking read actions can be restarted, only modify the shared state once the chunk is complete
+                val verdict = computeReadActionSafely(project) {
+                    checkChunk(chunk, project, fileIndex, rejectedDirectories)
+                } ?: return@forEach
+                validFiles.addAll(verdict.validFiles)
+                verdict.exclusionCountByReason.forEach { (reason, count) ->
+                    exclusionCountByReason.merge(reason, count) { previous, added -> previous + added }
+                }
+            }
+        } catch (e: Exception) {
+            SonarLintConsole.get(project).error("Error while visiting files, reason: " + e.message)
+        }
+        exclusionCountByReason.forEach { (reason, count) ->
+            SonarLintConsole.get(project).debug("$count file(s) excluded, reason: $reason")
+        }
+        return validFiles
+    }
+
+    private fun checkChunk(
+        chunk: List<VirtualFile>,
+        project: Project,
+        fileIndex: ProjectFileIndex,
+        rejectedDirectories: MutableMap<String, Boolean>,
+    ): ChunkVerdict {
+        val validFiles = mutableListOf<VirtualFile>()
+        val exclusionCountByReason = HashMap<String?, Int>()
+        chunk.forEach { file ->
+            val toSkip = try {
+                !file.isValid
+                    || file.parent?.let { isRejectedWithChildren(it, project, fileIndex, rejectedDirectories) } == true
+                    || shouldSkipWithExtensiveChecks(file, project, fileIndex) { reason ->
+                        exclusionCountByReason.merge(reason, 1) { previous, added -> previous + added }
+                    }
+            } catch (e: ProcessCanceledException) {
+                throw e
+            } catch (e: Exception) {
+                // Only this file is rejected
+                SonarLintConsole.get(project).error("Error while visiting a file, reason: " + e.message)
+                return@forEach
+            }
+            if (!toSkip) {
+                validFiles.add(file)
+            }
+        }
+        return ChunkVerdict(validFiles, exclusionCountByReason)
+    }
+
+    /**
+     * Whether all the files under [directory] are rejected, whatever their own checks. Only the checks that apply to whole
+     * directories are run, once per directory: extensions can exclude single files only.
+     */
+    private fun isRejectedWithChildren(
+        directory: VirtualFile,
+        project: Project,
+        fileIndex: ProjectFileIndex,
+        rejectedDirectories: MutableMap<String, Boolean>,
+    ): Boolean {
+        rejectedDirectories[directory.path]?.let { return it }
+        val isRejected = when {
+            fileIndex.isExcluded(directory) || fileIndex.isInLibrarySource(directory) -> true
+            // Above the content roots
+            !fileIndex.isInContent(directory) -> false
+            else -> isGeneratedSourceByAnyFilter(directory, project)
+                || directory.parent?.let { isRejectedWithChildren(it, project, fileIndex, rejectedDirectories) } == true
+        }
+        rejectedDirectories[directory.path] = isRejected
+        return isRejected
+    }
+
+    /** Keyed by path, so that a moved directory is checked again at its new location. */
+    private fun rejectedDirectoriesOf(project: Project): MutableMap<String, Boolean> =
+        CachedValuesManager.getManager(project).getCachedValue(project) {
+            CachedValueProvider.Result.create(ConcurrentHashMap<String, Boolean>(), ProjectRootModificationTracker.getInstance(project))
+        }
+
+    private fun shouldSkipWithExtensiveChecks(
+        file: VirtualFile,
+        project: Project,
+        fileIndex: ProjectFileIndex,
+        onExcludedFromEP: (String?) -> Unit,
+    ): Boolean {
+        return (!ApplicationManager.getApplication().isUnitTestMode && !file.isDirectory && FileUtilRt.isTooLarge(file.length))
+            || FileElement.isArchive(file)
+            || !fileIndex.isInContent(file)
+            || fileIndex.isInLibrarySource(file)
+            || ProjectCoreUtil.isProjectOrWorkspaceFile(file)
+            || isGeneratedSourceByAnyFilter(file, project)
+            || isRazorFile(file)
+            || ".idea" == file.parent.name
+            || isExcludedFromEP(file, project, onExcludedFromEP)
+    }
+
     private fun isRazorFile(file: VirtualFile): Boolean {
         return file.extension != null && file.name.endsWith("razor.cs")
     }
 
     private fun isExcludedFromEP(file: VirtualFile, project: Project): Boolean {
+        return isExcludedFromEP(file, project) { reason ->
+            SonarLintConsole.get(project).debug("File ${file.name} is excluded, reason: $reason")
+        }
+    }
+
+    private fun isExcludedFromEP(file: VirtualFile, project: Project, onExcluded: (String?) -> Unit): Boolean {
         for (fileExclusion in FileExclusionContributor.EP_NAME.extensionList) {
             val excludeResultFromEp = fileExclusion.shouldExclude(project, file)
             if (excludeResultFromEp.isExcluded) {
-                SonarLintConsole.get(project).debug("File ${file.name} is excluded, reason: ${excludeResultFromEp.excludeReason()}")
+                onExcluded(excludeResultFromEp.excludeReason())
                 return true
             }
         }
         return false
     }
 
+    private class ChunkVerdict(
+        val validFiles: List<VirtualFile>,
+        val exclusionCountByReason: Map<String?, Int>,
+    )
+
 }
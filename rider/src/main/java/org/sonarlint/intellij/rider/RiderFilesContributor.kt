@@ -19,14 +19,10 @@
  */
 package org.sonarlint.intellij.rider
 
+import com.intellij.openapi.components.service
 import com.intellij.openapi.module.Module
 import com.intellij.openapi.vfs.VirtualFile
-import com.jetbrains.rider.projectView.workspace.ProjectModelEntity
-import com.jetbrains.rider.projectView.workspace.ProjectModelEntityVisitor
-import com.jetbrains.rider.projectView.workspace.getVirtualFileAsContentRoot
-import com.jetbrains.rider.projectView.workspace.isProjectFile
 import org.sonarlint.intellij.common.analysis.FilesContributor
-import org.sonarlint.intellij.common.util.FileUtils.isFileValidForSonarLintWithExtensiveChecks
 
 class RiderFilesContributor : FilesContributor {
 
@@ -40,26 +36,11 @@ class RiderFilesContributor : FilesContributor {
     }
 
     private fun listFilesInSolution(module: Module): Set<VirtualFile> {
-        val filesInSolution = mutableSetOf<VirtualFile>()
-        val visitor = object : ProjectModelEntityVisitor() {
-            override fun visitProjectFile(entity: ProjectModelEntity): Result {
-                if (module.isDisposed) {
-                    return Result.Stop
-                }
-
-                if (entity.isProjectFile()) {
-                    entity.getVirtualFileAsContentRoot()?.let {
-                        if (!it.isDirectory && isFileValidForSonarLintWithExtensiveChecks(it, module.project)) {
-                            filesInSolution.add(it)
-                        }
-                    }
-                }
-
-                return Result.Continue
-            }
+        if (module.isDisposed) {
+            return emptySet()
         }
-        visitor.visit(module.project)
-        return filesInSolution
+        // The solution is walked and its files are checked once for all the modules
+        return module.project.service<RiderSolutionFiles>().files().toSet()
     }
 
 }
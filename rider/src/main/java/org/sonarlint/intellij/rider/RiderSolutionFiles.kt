@@ -0,0 +1,121 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.rider
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.platform.backend.workspace.WorkspaceModelChangeListener
+import com.intellij.platform.backend.workspace.WorkspaceModelTopics
+import com.intellij.platform.workspace.storage.VersionedStorageChange
+import com.jetbrains.rider.projectView.workspace.ProjectModelEntity
+import com.jetbrains.rider.projectView.workspace.ProjectModelEntityVisitor
+import com.jetbrains.rider.projectView.workspace.getVirtualFileAsContentRoot
+import com.jetbrains.rider.projectView.workspace.isProjectFile
+import java.util.concurrent.atomic.AtomicLong
+import org.sonarlint.intellij.common.ui.ReadActionUtils.Companion.computeReadActionSafely
+import org.sonarlint.intellij.common.util.FileUtils.filterValidForSonarLintWithExtensiveChecks
+
+/**
+ * Files of the solution that are valid for analysis.
+ *
+ * The backend lists the files of each module separately, and a solution typically has one module per project: walking
+ * the whole solution model for each of them is quadratic. The solution is walked once per generation and the result is
+ * shared by all the listings of that generation. Any change to the solution model starts a new generation.
+ *
+ * Solution files often live outside the content roots of any module, so the result is not partitioned by module: each
+ * module is given all the files of the solution, as when every listing walked the solution itself. The validity checks
+ * only depend on the project, so they are also run once per generation.
+ */
+@Service(Service.Level.PROJECT)
+class RiderSolutionFiles(private val project: Project) : Disposable {
+
+    private val generation = AtomicLong()
+    private val walkLock = Any()
+
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    init {
+        project.messageBus.connect(this).subscribe(WorkspaceModelTopics.CHANGED, object : WorkspaceModelChangeListener {
+            override fun changed(event: VersionedStorageChange) {
+                invalidate()
+            }
+        })
+    }
+
+    fun files(): List<VirtualFile> {
+        currentSnapshot()?.let { return it.files }
+        // Concurrent listings wait for the walk in progress instead of starting their own
+        synchronized(walkLock) {
+            currentSnapshot()?.let { return it.files }
+            // Read before walking, so that a change happening during the walk makes the result stale
+            val walkedGeneration = generation.get()
+            val walked = Snapshot(walkedGeneration, walkSolution())
+            if (!project.isDisposed) {
+                snapshot = walked
+            }
+            return walked.files
+        }
+    }
+
+    fun invalidate() {
+        // Only touch atomic state here: the change events are published under the write lock, while a walk may be
+        // holding walkLock and waiting for a read action
+        generation.incrementAndGet()
+    }
+
+    private fun currentSnapshot() = snapshot?.takeIf { it.generation == generation.get() }
+
+    private fun walkSolution(): List<VirtualFile> {
+        val filesInSolution = mutableListOf<VirtualFile>()
+        val visitor = object : ProjectModelEntityVisitor() {
+            override fun visitProjectFile(entity: ProjectModelEntity): Result {
+                if (project.isDisposed) {
+                    return Result.Stop
+                }
+
+                if (entity.isProjectFile()) {
+                    entity.getVirtualFileAsContentRoot()?.let {
+                        if (!it.isDirectory) {
+                            filesInSolution.add(it)
+                        }
+                    }
+                }
+
+                return Result.Continue
+            }
+        }
+        visitor.visit(project)
+
+        val validFiles = computeReadActionSafely(project) {
+            filesInSolution.distinct().filter { it.isValid }
+        } ?: return emptyList()
+        return filterValidForSonarLintWithExtensiveChecks(validFiles, project)
+    }
+
+    override fun dispose() {
+        snapshot = null
+    }
+
+    private class Snapshot(val generation: Long, val files: List<VirtualFile>)
+
+}
@@ -30,6 +30,7 @@ import com.intellij.openapi.application.ApplicationInfo
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.application.ApplicationNamesInfo
 import com.intellij.openapi.application.ModalityState
+import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.fileEditor.FileEditorManager
 import com.intellij.openapi.fileEditor.OpenFileDescriptor
 import com.intellij.openapi.module.Module
@@ -62,6 +63,7 @@ import java.util.UUID
 import java.util.concurrent.CancellationException
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicLong
 import kotlinx.html.emptyMap
 import org.apache.commons.text.StringEscapeUtils
 import org.eclipse.lsp4j.jsonrpc.ResponseErrorException
@@ -85,7 +87,7 @@ import org.sonarlint.intellij.cayc.NewCodePeriodCache
 import org.sonarlint.intellij.common.analysis.FilesContributor
 import org.sonarlint.intellij.common.ui.ReadActionUtils.Companion.computeReadActionSafely
 import org.sonarlint.intellij.common.ui.SonarLintConsole
-import org.sonarlint.intellij.common.util.FileUtils.isFileValidForSonarLintWithExtensiveChecks
+import org.sonarlint.intellij.common.util.FileUtils.filterValidForSonarLintWithExtensiveChecks
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.common.util.SonarLintUtils.isRider
 import org.sonarlint.intellij.common.vcs.VcsRepo
@@ -99,6 +101,7 @@ import org.sonarlint.intellij.connected.SonarProjectBranchCache
 import org.sonarlint.intellij.core.BackendService
 import org.sonarlint.intellij.core.BackendService.Companion.findModule
 import org.sonarlint.intellij.core.ProjectBindingManager
+import org.sonarlint.intellij.core.server.TrustedCertificateChains
 import org.sonarlint.intellij.documentation.SonarLintDocumentation.Intellij.CONNECTED_MODE_BENEFITS_LINK
 import org.sonarlint.intellij.documentation.SonarLintDocumentation.Intellij.CONNECTED_MODE_SETUP_LINK
 import org.sonarlint.intellij.documentation.SonarLintDocumentation.Intellij.SUPPORT_POLICY_LINK
@@ -193,7 +196,7 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
     private const val AUTOSCAN_CONFIG_FILENAME = ".sonarcloud.properties"
     private const val SONARLINT_CONFIGURATION_FOLDER = ".sonarlint"
     private val backendTaskProgressReporter = BackendTaskProgressReporter()
-
+    private val receivedLogsCountByLevel = LogLevel.values().associateWith { AtomicLong() }
     override fun suggestBinding(suggestionsByConfigScopeId: Map<String, List<BindingSuggestionDto>>) {
         suggestionsByConfigScopeId.forEach { (configScopeId, suggestions) -> suggestAutoBind(findProject(configScopeId), suggestions) }
     }
@@ -308,12 +311,17 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
     }
 
     override fun log(params: LogParams) {
+        receivedLogsCountByLevel.getValue(params.level).incrementAndGet()
         val configScopeId = params.configScopeId
 
         configScopeId?.let {
             val project = findModule(configScopeId)?.project ?: BackendService.findProject(configScopeId)
             project?.let {
                 val console: SonarLintConsole = getService(project, SonarLintConsole::class.java)
+                // Avoid formatting messages that would be discarded anyway
+                if (params.level == LogLevel.TRACE || (params.level == LogLevel.DEBUG && !console.debugEnabled())) {
+                    return
+                }
                 logProjectLevel(params.level, params.toString(), console)
                 return
             }
@@ -324,6 +332,12 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
     }
 
 
+    /**
+     * @return the number of log messages received from the backend since the IDE started, per level. Captured by the
+     * flight recorder of the Help & Feedback panel.
+     */
+    fun getReceivedLogsCountByLevel(): Map<LogLevel, Long> = receivedLogsCountByLevel.mapValues { it.value.get() }
+
     private fun mapLevel(level: LogLevel): ClientLogOutput.Level {
         return when (level) {
             LogLevel.ERROR -> {
@@ -621,10 +635,16 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
     }
 
     override fun checkServerTrusted(chain: List<X509CertificateDto>, authType: String): Boolean {
+        val pems = chain.map { it.pem }
+        val trustedCertificateChains = getService(TrustedCertificateChains::class.java)
+        if (trustedCertificateChains.isTrusted(pems, authType)) {
+            return true
+        }
         val certificateFactory = CertificateFactory.getInstance("X.509")
-        val certificates: Array<X509Certificate> = chain.stream().map { certificateFactory.generateCertificate(ByteArrayInputStream(it.pem.toByteArray())) as X509Certificate }.toList().toTypedArray()
+        val certificates: Array<X509Certificate> = pems.map { certificateFactory.generateCertificate(ByteArrayInputStream(it.toByteArray())) as X509Certificate }.toTypedArray()
         return try {
             CertificateManager.getInstance().trustManager.checkServerTrusted(certificates, authType)
+            trustedCertificateChains.markTrusted(pems, authType, certificates.minOfOrNull { it.notAfter.time } ?: 0L)
             true
         } catch (e: CertificateException) {
             GlobalLogOutput.get().logError("Certificate is not trusted", e)
@@ -867,9 +887,8 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
 
     // useful for Rider where the files to find are not located in content roots
     private fun listFilesInProjectBaseDir(project: Project): Set<VirtualFile> {
-        return project.guessProjectDir()?.children?.filter {
-            !it.isDirectory && isFileValidForSonarLintWithExtensiveChecks(it, project)
-        }?.toSet() ?: return emptySet()
+        val files = project.guessProjectDir()?.children?.filter { !it.isDirectory } ?: return emptySet()
+        return filterValidForSonarLintWithExtensiveChecks(files, project).toSet()
     }
 
     @JvmOverloads
@@ -903,8 +922,12 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
         }
     }
 
+    /**
+     * When the content is requested, it is only sent if the document has unsaved changes: otherwise the backend reads the
+     * file from disk, so there is no need to copy the whole content across the process boundary.
+     */
     private fun readFileContentIfNeeded(file: VirtualFile, includeFileContent: Boolean): String? {
-        val shouldReadContent = includeFileContent
+        val shouldReadContent = (includeFileContent && FileDocumentManager.getInstance().isFileModified(file))
             || file.name == SONAR_SCANNER_CONFIG_FILENAME
             || file.name == AUTOSCAN_CONFIG_FILENAME
             || file.parent?.name == SONARLINT_CONFIGURATION_FOLDER
@@ -949,12 +972,13 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
     ) {
         val module = findModule(configurationScopeId)
         val project = module?.project ?: BackendService.findProject(configurationScopeId) ?: return
-        val runningAnalysis = analysisId?.let { getService(project, RunningAnalysesTracker::class.java).getById(it) }
-        getService(project, NewCodePeriodCache::class.java).refreshAsync()
+        val tracker = getService(project, RunningAnalysesTracker::class.java)
+        val runningAnalysis = analysisId?.let { tracker.getById(it) }
+        getService(project, NewCodePeriodCache::class.java).refreshIfExpired()
 
         if (runningAnalysis != null) {
             runningAnalysis.addRawIssues(analysisId, issuesByFileUri, isIntermediatePublication)
-        } else if (module != null) {
+        } else if (module != null && (analysisId == null || !tracker.isSuperseded(analysisId))) {
             val onTheFlyFindingsHolder = getService(project, AnalysisSubmitter::class.java).onTheFlyFindingsHolder
             onTheFlyFindingsHolder.updateViewsWithNewIssues(module, issuesByFileUri, isIntermediatePublication)
         }
@@ -968,12 +992,13 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
     ) {
         val module = findModule(configurationScopeId)
         val project = module?.project ?: BackendService.findProject(configurationScopeId) ?: return
-        val runningAnalysis = analysisId?.let { getService(project, RunningAnalysesTracker::class.java).getById(it) }
-        getService(project, NewCodePeriodCache::class.java).refreshAsync()
+        val tracker = getService(project, RunningAnalysesTracker::class.java)
+        val runningAnalysis = analysisId?.let { tracker.getById(it) }
+        getService(project, NewCodePeriodCache::class.java).refreshIfExpired()
 
         if (runningAnalysis != null) {
             runningAnalysis.addRawHotspots(analysisId, hotspotsByFileUri, isIntermediatePublication)
-        } else if (module != null) {
+        } else if (module != null && (analysisId == null || !tracker.isSuperseded(analysisId))) {
             val onTheFlyFindingsHolder = getService(project, AnalysisSubmitter::class.java).onTheFlyFindingsHolder
             onTheFlyFindingsHolder.updateViewsWithNewSecurityHotspots(module, hotspotsByFileUri, isIntermediatePublication)
         }
@@ -1037,6 +1062,7 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
     }
 
     override fun invalidToken(connectionId: String) {
+        getService(CredentialsService::class.java).invalidateCredentials(connectionId)
         val globalSettings = getGlobalSettings()
         ProjectManager.getInstance().openProjects.forEach { project ->
             if (project.isDisposed) return@forEach
@@ -1087,9 +1113,9 @@ object SonarLintIntelliJClient : SonarLintRpcClientDelegate {
 
     override fun getFileExclusions(configurationScopeId: String): Set<String> {
         return findModule(configurationScopeId)?.let { module ->
-            getService(module.project, LocalFileExclusions::class.java).projectExclusions + getGlobalSettings().fileExclusions.toSet()
+            getService(module.project, LocalFileExclusions::class.java).allExclusions
         } ?: findProject(configurationScopeId)?.let { project ->
-            getService(project, LocalFileExclusions::class.java).projectExclusions + getGlobalSettings().fileExclusions.toSet()
+            getService(project, LocalFileExclusions::class.java).allExclusions
         } ?: return getGlobalSettings().fileExclusions.toSet()
     }
 
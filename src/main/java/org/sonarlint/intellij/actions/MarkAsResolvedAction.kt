@@ -32,6 +32,7 @@ import com.intellij.openapi.ui.DoNotAskOption
 import com.intellij.openapi.ui.MessageDialogBuilder
 import com.intellij.openapi.util.Iconable
 import com.intellij.psi.PsiFile
+import org.sonarlint.intellij.analysis.AnalysisSubmitter
 import org.sonarlint.intellij.common.ui.SonarLintConsole
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.config.global.ServerConnection
@@ -39,6 +40,7 @@ import org.sonarlint.intellij.core.BackendService
 import org.sonarlint.intellij.core.ProjectBindingManager
 import org.sonarlint.intellij.finding.Issue
 import org.sonarlint.intellij.finding.issue.vulnerabilities.LocalTaintVulnerability
+import org.sonarlint.intellij.finding.issue.vulnerabilities.TaintVulnerabilitiesCache
 import org.sonarlint.intellij.notifications.SonarLintProjectNotifications
 import org.sonarlint.intellij.tasks.FutureAwaitingTask
 import org.sonarlint.intellij.ui.UiUtils.Companion.runOnUiThread
@@ -149,6 +151,11 @@ class MarkAsResolvedAction(
 
         private fun updateUI(project: Project, issue: Issue) {
             issue.resolve()
+            if (issue is LocalTaintVulnerability) {
+                getService(project, TaintVulnerabilitiesCache::class.java).findingStatusChanged(issue)
+            } else {
+                getService(project, AnalysisSubmitter::class.java).onTheFlyFindingsHolder.findingStatusChanged(issue)
+            }
             getService(project, SonarLintToolWindow::class.java).refreshViews()
         }
 
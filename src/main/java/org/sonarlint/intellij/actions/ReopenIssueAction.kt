@@ -32,6 +32,7 @@ import com.intellij.openapi.ui.MessageDialogBuilder
 import com.intellij.openapi.util.Iconable
 import com.intellij.psi.PsiFile
 import org.sonarlint.intellij.actions.MarkAsResolvedAction.Companion.REVIEW_ISSUE_GROUP
+import org.sonarlint.intellij.analysis.AnalysisSubmitter
 import org.sonarlint.intellij.common.ui.SonarLintConsole
 import org.sonarlint.intellij.common.util.SonarLintUtils
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
@@ -41,6 +42,7 @@ import org.sonarlint.intellij.core.ProjectBindingManager
 import org.sonarlint.intellij.finding.Issue
 import org.sonarlint.intellij.finding.issue.LiveIssue
 import org.sonarlint.intellij.finding.issue.vulnerabilities.LocalTaintVulnerability
+import org.sonarlint.intellij.finding.issue.vulnerabilities.TaintVulnerabilitiesCache
 import org.sonarlint.intellij.notifications.SonarLintProjectNotifications
 import org.sonarlint.intellij.util.DataKeys
 import org.sonarlint.intellij.util.SonarLintAppUtils.findModuleForFile
@@ -104,6 +106,11 @@ class ReopenIssueAction(private var issue: LiveIssue? = null) : AbstractSonarAct
 
         private fun updateUI(project: Project, issue: Issue) {
             issue.reopen()
+            if (issue is LocalTaintVulnerability) {
+                getService(project, TaintVulnerabilitiesCache::class.java).findingStatusChanged(issue)
+            } else {
+                getService(project, AnalysisSubmitter::class.java).onTheFlyFindingsHolder.findingStatusChanged(issue)
+            }
             getService(project, SonarLintToolWindow::class.java).refreshViews()
         }
 
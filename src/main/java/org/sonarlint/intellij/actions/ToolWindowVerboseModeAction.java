@@ -21,7 +21,9 @@ package org.sonarlint.intellij.actions;
 
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnActionEvent;
+import org.sonarlint.intellij.core.BackendService;
 
+import static org.sonarlint.intellij.common.util.SonarLintUtils.getService;
 import static org.sonarlint.intellij.config.Settings.getSettingsFor;
 
 public class ToolWindowVerboseModeAction extends AbstractSonarToggleAction {
@@ -41,6 +43,7 @@ public class ToolWindowVerboseModeAction extends AbstractSonarToggleAction {
     var p = event.getProject();
     if (p != null) {
       getSettingsFor(p).setVerboseEnabled(flag);
+      getService(BackendService.class).verboseOutputChanged(p);
     }
   }
 }
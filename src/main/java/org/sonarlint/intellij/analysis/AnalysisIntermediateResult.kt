@@ -21,4 +21,8 @@ package org.sonarlint.intellij.analysis
 
 import org.sonarlint.intellij.finding.LiveFindings
 
+/**
+ * Findings streamed by an intermediate publication. Only contains the files of this publication, not everything received
+ * so far for the analysis.
+ */
 data class AnalysisIntermediateResult(val findings: LiveFindings)
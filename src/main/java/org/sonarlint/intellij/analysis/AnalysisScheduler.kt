@@ -0,0 +1,178 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.analysis
+
+import com.intellij.openapi.components.Service
+import java.util.EnumMap
+import java.util.UUID
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * Decides when the analyses requested by the user are submitted to the backend.
+ *
+ * On-the-fly analyses (open files, current file) are submitted right away. Report analyses (all files, VCS changed
+ * files...) are queued: at most [MAX_CONCURRENT_REPORT_ANALYSES] modules are analyzed at the same time, and none starts
+ * while an on-the-fly analysis is running, so that a large report does not delay the feedback in the editor.
+ *
+ * An analysis holds its slot from its submission until [RunningAnalysesTracker] reports it finished, cancelled, or lost
+ * because the backend exited. A queued request can be superseded by a newer one with the same key, e.g. when the user
+ * starts the same report twice.
+ */
+@Service(Service.Level.PROJECT)
+class AnalysisScheduler {
+
+    enum class Priority { ON_THE_FLY, REPORT }
+
+    private class Request(
+        val priority: Priority,
+        val supersedeKey: Any?,
+        val start: () -> CompletableFuture<UUID?>,
+        val onSuperseded: () -> Unit,
+    )
+
+    private class RunningAnalysis(val priority: Priority, val startNanos: Long)
+
+    private val lock = Any()
+    private val queuedRequests = ArrayDeque<Request>()
+    private val activeCountByPriority = EnumMap<Priority, Int>(Priority::class.java)
+    private val runningAnalysesById = HashMap<UUID, RunningAnalysis>()
+    // Analyses that finished before the response to their submission was received
+    private val finishedBeforeStart = HashSet<UUID>()
+
+    /**
+     * @param start submits the analysis to the backend and returns its ID, or null if nothing is analyzed
+     * @param onSuperseded called if the request is dropped from the queue because a newer one with the same key came in
+     */
+    fun submit(priority: Priority, supersedeKey: Any? = null, onSuperseded: () -> Unit = {}, start: () -> CompletableFuture<UUID?>) {
+        val superseded = mutableListOf<Request>()
+        val requestsToStart = synchronized(lock) {
+            if (supersedeKey != null) {
+                queuedRequests.filter { it.supersedeKey == supersedeKey }.forEach {
+                    queuedRequests.remove(it)
+                    superseded.add(it)
+                }
+            }
+            val request = Request(priority, supersedeKey, start, onSuperseded)
+            if (priority == Priority.ON_THE_FLY) {
+                incrementActive(priority)
+                listOf(request)
+            } else {
+                queuedRequests.addLast(request)
+                pollStartableRequests()
+            }
+        }
+        superseded.forEach { it.onSuperseded() }
+        requestsToStart.forEach { launch(it) }
+    }
+
+    fun analysisFinished(analysisId: UUID) {
+        val requestsToStart = synchronized(lock) {
+            val runningAnalysis = runningAnalysesById.remove(analysisId)
+            if (runningAnalysis != null) {
+                decrementActive(runningAnalysis.priority)
+            } else if (hasStartingAnalyses()) {
+                finishedBeforeStart.add(analysisId)
+            }
+            pollStartableRequests()
+        }
+        requestsToStart.forEach { launch(it) }
+    }
+
+    fun clear() {
+        synchronized(lock) {
+            queuedRequests.clear()
+            activeCountByPriority.clear()
+            runningAnalysesById.clear()
+            finishedBeforeStart.clear()
+        }
+    }
+
+    fun getQueuedRequestsCount() = synchronized(lock) { queuedRequests.size }
+
+    private fun launch(request: Request) {
+        val response = try {
+            request.start()
+        } catch (e: Exception) {
+            CompletableFuture.failedFuture(e)
+        }
+        response.whenComplete { analysisId, error ->
+            val requestsToStart = synchronized(lock) {
+                if (error == null && analysisId != null && !finishedBeforeStart.remove(analysisId)) {
+                    runningAnalysesById[analysisId] = RunningAnalysis(request.priority, System.nanoTime())
+                } else {
+                    decrementActive(request.priority)
+                }
+                if (!hasStartingAnalyses()) {
+                    finishedBeforeStart.clear()
+                }
+                pollStartableRequests()
+            }
+            requestsToStart.forEach { launch(it) }
+        }
+    }
+
+    private fun pollStartableRequests(): List<Request> {
+        releaseStaleAnalyses()
+        val requestsToStart = mutableListOf<Request>()
+        while (queuedRequests.isNotEmpty()
+            && activeCount(Priority.ON_THE_FLY) == 0
+            && activeCount(Priority.REPORT) < MAX_CONCURRENT_REPORT_ANALYSES
+        ) {
+            val request = queuedRequests.removeFirst()
+            incrementActive(request.priority)
+            requestsToStart.add(request)
+        }
+        return requestsToStart
+    }
+
+    /**
+     * An analysis that never reports its end (e.g. its end notification was lost) must not hold its slot forever.
+     */
+    private fun releaseStaleAnalyses() {
+        val now = System.nanoTime()
+        val iterator = runningAnalysesById.values.iterator()
+        while (iterator.hasNext()) {
+            val runningAnalysis = iterator.next()
+            if (now - runningAnalysis.startNanos > MAX_RUNNING_DURATION_NANOS) {
+                iterator.remove()
+                decrementActive(runningAnalysis.priority)
+            }
+        }
+    }
+
+    private fun hasStartingAnalyses() = activeCountByPriority.values.sum() > runningAnalysesById.size
+
+    private fun activeCount(priority: Priority) = activeCountByPriority[priority] ?: 0
+
+    private fun incrementActive(priority: Priority) {
+        activeCountByPriority[priority] = activeCount(priority) + 1
+    }
+
+    private fun decrementActive(priority: Priority) {
+        activeCountByPriority[priority] = (activeCount(priority) - 1).coerceAtLeast(0)
+    }
+
+    companion object {
+        private const val MAX_CONCURRENT_REPORT_ANALYSES = 2
+        private val MAX_RUNNING_DURATION_NANOS = TimeUnit.MINUTES.toNanos(30)
+    }
+
+}
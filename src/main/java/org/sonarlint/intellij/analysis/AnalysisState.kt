@@ -22,10 +22,16 @@ package org.sonarlint.intellij.analysis
 import com.intellij.openapi.module.Module
 import com.intellij.openapi.progress.ProcessCanceledException
 import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.concurrency.AppExecutorUtil
 import java.net.URI
 import java.time.Instant
 import java.util.UUID
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
 import org.sonarlint.intellij.common.ui.SonarLintConsole
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.config.Settings
@@ -37,75 +43,141 @@ import org.sonarlint.intellij.util.VirtualFileUtils.uriToVirtualFile
 import org.sonarsource.sonarlint.core.rpc.protocol.client.hotspot.RaisedHotspotDto
 import org.sonarsource.sonarlint.core.rpc.protocol.client.issue.RaisedIssueDto
 
-class AnalysisState(
+/**
+ * Accumulates the findings raised for an analysis submitted by the client, until both the final issues and the final
+ * Security Hotspots (when bound) are received.
+ *
+ * Publications can be received concurrently on different RPC threads. The raw findings of each publication are
+ * converted in parallel per file on a worker pool, and the publications are applied in the order they were received,
+ * so the findings of a file are never replaced by those of an earlier publication. The analysis completes exactly once.
+ */
+class AnalysisState @JvmOverloads constructor(
     val id: UUID,
     private val analysisCallback: AnalysisCallback,
-    private val module: Module
+    private val module: Module,
+    /** The files submitted for analysis, empty when the backend decides which files are analyzed. */
+    val files: Set<VirtualFile> = emptySet(),
+    /** Whether a newer analysis of the same kind covering the same files makes this one useless (see [RunningAnalysesTracker]). */
+    val isSupersedable: Boolean = false,
 ) {
     private val modificationStampByFile = ConcurrentHashMap<VirtualFile, Long>()
     private val analysisDate: Instant = Instant.now()
-    private val liveIssues = mutableMapOf<VirtualFile, Collection<LiveIssue>>()
-    private val liveHotspots = mutableMapOf<VirtualFile, Collection<LiveSecurityHotspot>>()
+    private val liveIssues = ConcurrentHashMap<VirtualFile, Collection<LiveIssue>>()
+    private val liveHotspots = ConcurrentHashMap<VirtualFile, Collection<LiveSecurityHotspot>>()
     private val shouldReceiveHotspot: Boolean = Settings.getSettingsFor(module.project).isBound
+    @Volatile
     private var hasReceivedFinalIssues = false
+    @Volatile
     private var hasReceivedFinalHotspots = false
+    private val isCompleted = AtomicBoolean()
+    // Guarded by this, completes when the last received publication has been applied
+    private var lastPublication: CompletableFuture<Unit> = CompletableFuture.completedFuture(Unit)
+
+    private val startNanos = System.nanoTime()
+    private val firstResultNanos = AtomicLong(NO_RESULT)
+    private val lastResultNanos = AtomicLong(NO_RESULT)
+    private val conversionNanos = AtomicLong()
+    private val convertedFilesCount = AtomicInteger()
 
     fun addRawHotspots(analysisId: UUID, hotspotsByFile: Map<URI, List<RaisedHotspotDto>>, isIntermediate: Boolean) {
-        hasReceivedFinalHotspots = !isIntermediate
-
-        liveHotspots.putAll(hotspotsByFile.mapNotNull { (uri, rawHotspots) ->
-            val virtualFile = uriToVirtualFile(uri)
-            if (virtualFile != null) {
-                val liveHotspots = convertRawHotspots(virtualFile, rawHotspots)
-                virtualFile to liveHotspots
-            } else {
-                null
+        enqueuePublication(convertAsync(hotspotsByFile, ::convertRawHotspots)) { newHotspots ->
+            liveHotspots.putAll(newHotspots)
+            if (!isIntermediate) {
+                hasReceivedFinalHotspots = true
             }
-        })
-
-        if (isAnalysisFinished()) {
-            analysisCallback.onSuccess(
-                AnalysisResult(
-                    analysisId,
-                    LiveFindings(liveIssues, liveHotspots),
-                    liveHotspots.keys,
-                    analysisDate
-                )
-            )
-            getService(module.project, RunningAnalysesTracker::class.java).finish(this)
-        } else {
-            analysisCallback.onIntermediateResult(AnalysisIntermediateResult(LiveFindings(liveIssues, liveHotspots)))
+            publishResults(analysisId, liveHotspots.keys, LiveFindings(emptyMap(), newHotspots))
         }
     }
 
     fun addRawIssues(analysisId: UUID, issuesByFile: Map<URI, List<RaisedIssueDto>>, isIntermediate: Boolean) {
-        hasReceivedFinalIssues = !isIntermediate
-
-        liveIssues.putAll(issuesByFile.mapNotNull { (uri, rawIssues) ->
-            val virtualFile = uriToVirtualFile(uri)
-            if (virtualFile != null) {
-                val liveIssues = convertRawIssues(virtualFile, rawIssues)
-                virtualFile to liveIssues
-            } else {
-                null
+        enqueuePublication(convertAsync(issuesByFile, ::convertRawIssues)) { newIssues ->
+            liveIssues.putAll(newIssues)
+            if (!isIntermediate) {
+                hasReceivedFinalIssues = true
             }
-        })
+            publishResults(analysisId, liveIssues.keys, LiveFindings(newIssues, emptyMap()))
+        }
+    }
 
+    private fun <T> enqueuePublication(conversion: CompletableFuture<T>, apply: (T) -> Unit) {
+        val now = System.nanoTime()
+        firstResultNanos.compareAndSet(NO_RESULT, now)
+        lastResultNanos.set(now)
+        synchronized(this) {
+            // The conversion already runs, only applying its result waits for the previous publications
+            lastPublication = lastPublication.thenCombine(conversion) { _, converted ->
+                try {
+                    apply(converted)
+                } catch (e: Exception) {
+                    // Must not break the chain, the next publications would be lost
+                    SonarLintConsole.get(module.project).error("Error while publishing analysis results", e)
+                }
+            }
+        }
+    }
+
+    private fun <D, T> convertAsync(
+        findingsByFile: Map<URI, List<D>>,
+        convert: (VirtualFile, List<D>) -> Collection<T>,
+    ): CompletableFuture<Map<VirtualFile, Collection<T>>> {
+        val conversions = findingsByFile.map { (uri, rawFindings) ->
+            CompletableFuture.supplyAsync({
+                val start = System.nanoTime()
+                val converted = uriToVirtualFile(uri)?.let { it to convert(it, rawFindings) }
+                conversionNanos.addAndGet(System.nanoTime() - start)
+                convertedFilesCount.incrementAndGet()
+                converted
+            }, conversionExecutor).exceptionally { null }
+        }
+        return CompletableFuture.allOf(*conversions.toTypedArray()).thenApply {
+            // Keeps the order of the publication
+            conversions.mapNotNull { it.join() }.toMap(LinkedHashMap())
+        }
+    }
+
+    /**
+     * Intermediate publications only hand over [newFindings], the files streamed by the last publication: the receivers
+     * append them to what they already show instead of rebuilding everything received so far.
+     */
+    private fun publishResults(analysisId: UUID, analyzedFiles: Set<VirtualFile>, newFindings: LiveFindings) {
+        val tracker = getService(module.project, RunningAnalysesTracker::class.java)
+        if (tracker.isSuperseded(id) || isCompleted.get()) {
+            return
+        }
         if (isAnalysisFinished()) {
+            if (!isCompleted.compareAndSet(false, true)) {
+                return
+            }
+            val outdatedFiles = tracker.publishResults(this, liveIssues.keys + liveHotspots.keys)
             analysisCallback.onSuccess(
                 AnalysisResult(
                     analysisId,
-                    LiveFindings(liveIssues, liveHotspots),
-                    liveIssues.keys,
+                    LiveFindings(liveIssues - outdatedFiles, liveHotspots - outdatedFiles),
+                    analyzedFiles - outdatedFiles,
                     analysisDate
                 )
             )
-            getService(module.project, RunningAnalysesTracker::class.java).finish(this)
+            tracker.finish(this)
+            SonarLintConsole.get(module.project).debug("Analysis $id results: ${getTimings()}")
         } else {
-            analysisCallback.onIntermediateResult(AnalysisIntermediateResult(LiveFindings(liveIssues, liveHotspots)))
+            analysisCallback.onIntermediateResult(AnalysisIntermediateResult(newFindings))
         }
     }
 
+    /**
+     * Timings of the results received so far, relative to the creation of this state.
+     */
+    fun getTimings() = AnalysisTimings(
+        elapsedMs(firstResultNanos.get()),
+        elapsedMs(lastResultNanos.get()),
+        TimeUnit.NANOSECONDS.toMillis(conversionNanos.get()),
+        convertedFilesCount.get(),
+    )
+
+    private fun elapsedMs(nanos: Long) = if (nanos == NO_RESULT) null else TimeUnit.NANOSECONDS.toMillis(nanos - startNanos)
+
+    internal fun hasSameCallbackTypeAs(other: AnalysisState) = analysisCallback.javaClass == other.analysisCallback.javaClass
+
     private fun convertRawHotspots(virtualFile: VirtualFile, rawHotspots: Collection<RaisedHotspotDto>): Collection<LiveSecurityHotspot> {
         try {
             return rawHotspots.mapNotNull { hotspot ->
@@ -146,4 +218,16 @@ class AnalysisState(
         return hasReceivedFinalIssues && (!shouldReceiveHotspot || hasReceivedFinalHotspots)
     }
 
+    data class AnalysisTimings(val firstResultMs: Long?, val lastResultMs: Long?, val conversionMs: Long, val convertedFiles: Int) {
+        override fun toString() =
+            "first after ${firstResultMs ?: "-"} ms, last after ${lastResultMs ?: "-"} ms, $convertedFiles file(s) converted in $conversionMs ms"
+    }
+
+    companion object {
+        private const val NO_RESULT = Long.MIN_VALUE
+        private val conversionExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor(
+            "SonarLint Findings Conversion", Runtime.getRuntime().availableProcessors().coerceIn(1, 4)
+        )
+    }
+
 }
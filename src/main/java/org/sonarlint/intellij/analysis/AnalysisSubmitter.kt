@@ -27,6 +27,7 @@ import com.intellij.openapi.module.ModuleManager
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import java.util.UUID
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ExecutionException
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.TimeoutException
@@ -50,6 +51,7 @@ import org.sonarlint.intellij.tasks.GlobalTaskProgressReporter
 import org.sonarlint.intellij.ui.ToolWindowConstants.TOOL_WINDOW_ID
 import org.sonarlint.intellij.util.SonarLintAppUtils.findModuleForFile
 import org.sonarlint.intellij.util.runOnPooledThread
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.ForceAnalyzeResponse
 
 @Service(Service.Level.PROJECT)
 class AnalysisSubmitter(private val project: Project) {
@@ -62,7 +64,9 @@ class AnalysisSubmitter(private val project: Project) {
             val callback = ShowReportCallable(project, modules.size)
             val taskState = createGlobalTaskIfNeeded("Analyzing all projects files", modules.size, true)
             modules.forEach { module ->
-                getService(BackendService::class.java).analyzeFullProject(module).thenAccept { response ->
+                scheduleAnalysis(module, AnalysisScheduler.Priority.REPORT, SupersedeKey("all files", module), taskState, {
+                    getService(BackendService::class.java).analyzeFullProject(module)
+                }) { response ->
                     response.analysisId?.let { analysisId ->
                         val analysisState = AnalysisState(analysisId, callback, module)
                         getService(project, RunningAnalysesTracker::class.java).track(analysisState)
@@ -79,7 +83,9 @@ class AnalysisSubmitter(private val project: Project) {
             val callback = ShowReportCallable(project, modules.size)
             val taskState = createGlobalTaskIfNeeded("Analyzing VCS changed files", modules.size, false)
             modules.forEach { module ->
-                getService(BackendService::class.java).analyzeVCSChangedFiles(module).thenAccept { response ->
+                scheduleAnalysis(module, AnalysisScheduler.Priority.REPORT, SupersedeKey("VCS changed files", module), taskState, {
+                    getService(BackendService::class.java).analyzeVCSChangedFiles(module)
+                }) { response ->
                     response.analysisId?.let { analysisId ->
                         val analysisState = AnalysisState(analysisId, callback, module)
                         getService(project, RunningAnalysesTracker::class.java).track(analysisState)
@@ -96,7 +102,9 @@ class AnalysisSubmitter(private val project: Project) {
             val callback = UpdateOnTheFlyFindingsCallable(onTheFlyFindingsHolder)
             val modules = ModuleManager.getInstance(project).modules
             modules.forEach { module ->
-                getService(BackendService::class.java).analyzeOpenFiles(module).thenAccept { response ->
+                scheduleAnalysis(module, AnalysisScheduler.Priority.ON_THE_FLY, submit = {
+                    getService(BackendService::class.java).analyzeOpenFiles(module)
+                }) { response ->
                     response.analysisId?.let { analysisId ->
                         val analysisState = AnalysisState(analysisId, callback, module)
                         getService(project, RunningAnalysesTracker::class.java).track(analysisState)
@@ -157,13 +165,14 @@ class AnalysisSubmitter(private val project: Project) {
             }
             val moduleCount = filesByModule.keys.filterNotNull().size
             
-            val callback = if (TOOL_WINDOW_ID == actionEvent.place) {
+            val isCurrentFileAnalysis = TOOL_WINDOW_ID == actionEvent.place
+            val callback = if (isCurrentFileAnalysis) {
                 ShowUpdatedCurrentFileCallable(project, onTheFlyFindingsHolder)
             } else {
                 ShowReportCallable(project, moduleCount)
             }
             
-            analyzeFiles(filesByModule, callback)
+            analyzeFiles(filesByModule, callback, if (isCurrentFileAnalysis) AnalysisScheduler.Priority.ON_THE_FLY else AnalysisScheduler.Priority.REPORT)
         }
     }
 
@@ -177,42 +186,74 @@ class AnalysisSubmitter(private val project: Project) {
             val filesByModule = files.groupBy { file ->
                 findModuleForFile(file, project)
             }
-            analyzeFiles(filesByModule, callback)
+            analyzeFiles(filesByModule, callback, AnalysisScheduler.Priority.ON_THE_FLY)
         }
     }
 
-    private fun analyzeFiles(filesByModule: Map<Module?, List<VirtualFile>>, callback: AnalysisCallback) {
+    private fun analyzeFiles(filesByModule: Map<Module?, List<VirtualFile>>, callback: AnalysisCallback, priority: AnalysisScheduler.Priority) {
         val taskState = createGlobalTaskIfNeeded("Analyzing files", filesByModule.size, true)
         filesByModule.forEach { (module, files) ->
             module?.let {
                 getService(project, PromotionProvider::class.java).handlePromotionOnAnalysisReport(files)
-                getService(BackendService::class.java).analyzeFileList(module, files)
-                    .thenAccept { response ->
-                        response.analysisId?.let { analysisId ->
-                            getService(project, AnalysisStatus::class.java).tryRun(analysisId)
-                            val analysisState = AnalysisState(analysisId, callback, module)
-                            getService(project, RunningAnalysesTracker::class.java).track(analysisState)
-                        }
-                        taskState?.trackTask(module, response.analysisId?.toString())
+                scheduleAnalysis(module, priority, null, taskState, {
+                    getService(BackendService::class.java).analyzeFileList(module, files)
+                }, callback::onError) { response ->
+                    response.analysisId?.let { analysisId ->
+                        getService(project, AnalysisStatus::class.java).tryRun(analysisId)
+                        val analysisState = AnalysisState(analysisId, callback, module, files.toSet(), priority == AnalysisScheduler.Priority.ON_THE_FLY)
+                        getService(project, RunningAnalysesTracker::class.java).track(analysisState)
+                    }
+                    taskState?.trackTask(module, response.analysisId?.toString())
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits the analysis of a module through the [AnalysisScheduler]. Report analyses may wait for a free slot: the ones
+     * of a cancelled progress task, or superseded by a newer request, are then never submitted to the backend.
+     */
+    private fun scheduleAnalysis(
+        module: Module,
+        priority: AnalysisScheduler.Priority,
+        supersedeKey: SupersedeKey? = null,
+        taskState: GlobalTaskProgressReporter? = null,
+        submit: () -> CompletableFuture<ForceAnalyzeResponse>,
+        onError: (Throwable) -> Unit = {},
+        onSubmitted: (ForceAnalyzeResponse) -> Unit,
+    ) {
+        getService(project, AnalysisScheduler::class.java).submit(priority, supersedeKey, { taskState?.trackTask(module, null) }) {
+            if (taskState?.isCancelled == true) {
+                taskState.trackTask(module, null)
+                CompletableFuture.completedFuture<UUID?>(null)
+            } else {
+                submit()
+                    .thenApply { response ->
+                        onSubmitted(response)
+                        response.analysisId
                     }
                     .exceptionally { throwable ->
-                        callback.onError(throwable)
+                        onError(throwable)
                         null
                     }
             }
         }
     }
 
+    private data class SupersedeKey(val analysisType: String, val module: Module)
+
     fun <T: Finding> analyzeFileAndTrySelectFinding(showFinding: ShowFinding<T>) {
         runOnPooledThread(project) {
             getService(project, OpenInIdeFindingCache::class.java).analysisQueued = true
             val callback = ShowFindingCallable(project, onTheFlyFindingsHolder, showFinding)
             findModuleForFile(showFinding.file, project)?.let { module ->
-                getService(BackendService::class.java).analyzeFileList(module, listOf(showFinding.file)).thenAcceptAsync { response ->
+                scheduleAnalysis(module, AnalysisScheduler.Priority.ON_THE_FLY, submit = {
+                    getService(BackendService::class.java).analyzeFileList(module, listOf(showFinding.file))
+                }) { response ->
                     response.analysisId?.let { analysisId ->
                         getService(project, OpenInIdeFindingCache::class.java).finding = null
                         getService(project, OpenInIdeFindingCache::class.java).analysisQueued = false
-                        val analysisState = AnalysisState(analysisId, callback, module)
+                        val analysisState = AnalysisState(analysisId, callback, module, setOf(showFinding.file), true)
                         getService(project, RunningAnalysesTracker::class.java).track(analysisState)
                     }
                 }
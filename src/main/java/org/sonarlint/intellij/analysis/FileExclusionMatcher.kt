@@ -0,0 +1,178 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.analysis
+
+import com.intellij.openapi.util.SystemInfo
+import java.nio.file.FileSystems
+import java.nio.file.InvalidPathException
+import java.nio.file.PathMatcher
+import java.nio.file.Paths
+import java.util.Locale
+import java.util.regex.PatternSyntaxException
+
+/**
+ * Matches file paths against a set of exclusion globs, with the semantics of the `glob:` syntax of [java.nio.file.PathMatcher]
+ * that the backend applies to the same patterns. It allows checking files locally, without a round trip to the backend.
+ *
+ * Patterns only made of literal segments, `*`, `?` and whole `**` segments are merged into a single automaton over the
+ * path segments: a path is matched against all of them in one pass, literal segments being looked up in hash maps.
+ * Other patterns (character classes, alternatives, escapes, `**` inside a segment) fall back to a [PathMatcher] each.
+ *
+ * Matching is case-insensitive on Windows, like the default file system matchers.
+ */
+class FileExclusionMatcher @JvmOverloads constructor(patterns: Collection<String>, private val ignoreCase: Boolean = SystemInfo.isWindows) {
+
+    private val root = Node()
+    private val fallbackMatchers: List<PathMatcher>
+    val isEmpty: Boolean
+
+    init {
+        val fallbacks = mutableListOf<PathMatcher>()
+        patterns.forEach { pattern ->
+            if (!addToAutomaton(pattern)) {
+                toPathMatcher(pattern)?.let { fallbacks.add(it) }
+            }
+        }
+        fallbackMatchers = fallbacks
+        isEmpty = root.isEmpty() && fallbackMatchers.isEmpty()
+    }
+
+    /**
+     * @param path a path with forward slashes, relative to the module like the paths the backend matches exclusions against
+     */
+    fun matches(path: String): Boolean {
+        if (isEmpty) {
+            return false
+        }
+        return matchesAutomaton(path) || matchesFallbacks(path)
+    }
+
+    private fun matchesAutomaton(path: String): Boolean {
+        if (root.isEmpty()) {
+            return false
+        }
+        var states = setOf(root)
+        for (segment in path.split('/')) {
+            val normalizedSegment = normalize(segment)
+            val nextStates = HashSet<Node>()
+            states.forEach { it.advance(normalizedSegment, nextStates) }
+            if (nextStates.isEmpty()) {
+                return false
+            }
+            states = nextStates
+        }
+        return states.any { it.isTerminal }
+    }
+
+    private fun matchesFallbacks(path: String): Boolean {
+        if (fallbackMatchers.isEmpty()) {
+            return false
+        }
+        val nioPath = try {
+            Paths.get(path)
+        } catch (_: InvalidPathException) {
+            return false
+        }
+        return fallbackMatchers.any { it.matches(nioPath) }
+    }
+
+    private fun addToAutomaton(pattern: String): Boolean {
+        if (pattern.isEmpty() || pattern.any { it in UNSUPPORTED_CHARACTERS }) {
+            return false
+        }
+        val segments = pattern.split('/')
+        if (segments.any { it != ANY_SEGMENTS && it.contains(ANY_SEGMENTS) }) {
+            return false
+        }
+        var node = root
+        segments.forEach { segment ->
+            node = when {
+                segment == ANY_SEGMENTS -> node.anySegmentsChild()
+                segment.contains('*') || segment.contains('?') -> node.wildcardChild(segment, ignoreCase)
+                else -> node.literalChild(normalize(segment))
+            }
+        }
+        node.isTerminal = true
+        return true
+    }
+
+    private fun normalize(segment: String) = if (ignoreCase) segment.lowercase(Locale.ROOT) else segment
+
+    private class Node(val repeatsAnySegment: Boolean = false) {
+        var isTerminal = false
+        private val literalChildren = HashMap<String, Node>()
+        private val wildcardChildren = mutableListOf<Pair<Regex, Node>>()
+        private val wildcardChildrenByGlob = HashMap<String, Node>()
+        private var anySegmentsChild: Node? = null
+
+        fun isEmpty() = literalChildren.isEmpty() && wildcardChildren.isEmpty() && anySegmentsChild == null
+
+        fun literalChild(segment: String) = literalChildren.getOrPut(segment) { Node() }
+
+        fun wildcardChild(glob: String, ignoreCase: Boolean) = wildcardChildrenByGlob.getOrPut(glob) {
+            Node().also { wildcardChildren.add(segmentRegex(glob, ignoreCase) to it) }
+        }
+
+        fun anySegmentsChild() = anySegmentsChild ?: Node(repeatsAnySegment = true).also { anySegmentsChild = it }
+
+        fun advance(segment: String, nextStates: MutableSet<Node>) {
+            literalChildren[segment]?.let { nextStates.add(it) }
+            wildcardChildren.forEach { (regex, child) ->
+                if (regex.matches(segment)) {
+                    nextStates.add(child)
+                }
+            }
+            // '**' crosses directory boundaries: it consumes one or more segments
+            anySegmentsChild?.let { nextStates.add(it) }
+            if (repeatsAnySegment) {
+                nextStates.add(this)
+            }
+        }
+    }
+
+    companion object {
+        private const val ANY_SEGMENTS = "**"
+        private const val UNSUPPORTED_CHARACTERS = "[]{}\\"
+
+        private fun segmentRegex(glob: String, ignoreCase: Boolean): Regex {
+            val regex = buildString {
+                glob.forEach {
+                    when (it) {
+                        '*' -> append(".*")
+                        '?' -> append('.')
+                        else -> append(Regex.escape(it.toString()))
+                    }
+                }
+            }
+            return if (ignoreCase) Regex(regex, setOf(RegexOption.IGNORE_CASE)) else Regex(regex)
+        }
+
+        private fun toPathMatcher(pattern: String): PathMatcher? {
+            return try {
+                FileSystems.getDefault().getPathMatcher("glob:$pattern")
+            } catch (_: PatternSyntaxException) {
+                null
+            } catch (_: IllegalArgumentException) {
+                null
+            }
+        }
+    }
+
+}
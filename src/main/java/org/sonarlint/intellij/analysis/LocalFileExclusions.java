@@ -20,7 +20,9 @@
 package org.sonarlint.intellij.analysis;
 
 import com.intellij.openapi.components.Service;
+import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.HashSet;
@@ -29,20 +31,32 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
+import org.sonarlint.intellij.config.global.SonarLintGlobalSettings;
 import org.sonarlint.intellij.config.project.ExclusionItem;
 import org.sonarlint.intellij.config.project.SonarLintProjectSettings;
+import org.sonarlint.intellij.messages.GlobalConfigurationListener;
 import org.sonarlint.intellij.messages.ProjectConfigurationListener;
 
+import static org.sonarlint.intellij.config.Settings.getGlobalSettings;
 import static org.sonarlint.intellij.config.Settings.getSettingsFor;
+import static org.sonarlint.intellij.util.SonarLintAppUtils.getRelativePathForAnalysis;
 
 @Service(Service.Level.PROJECT)
 public final class LocalFileExclusions {
 
   private Set<String> projectExclusions = new HashSet<>();
+  private Set<String> globalExclusions = new HashSet<>();
+  /**
+   * Project and global exclusions together, with the matcher compiled from them. Both are rebuilt when settings change,
+   * so that answering the backend or checking a file does not have to re-parse the patterns.
+   */
+  private volatile CompiledExclusions compiledExclusions = CompiledExclusions.NONE;
 
   public LocalFileExclusions(Project project) {
     subscribeToSettingsChanges(project);
-    loadProjectExclusions(getSettingsFor(project));
+    projectExclusions = loadProjectExclusions(getSettingsFor(project));
+    globalExclusions = loadGlobalExclusions(getGlobalSettings());
+    compile();
   }
 
   /**
@@ -83,7 +97,50 @@ public final class LocalFileExclusions {
     return projectExclusions;
   }
 
-  private void loadProjectExclusions(SonarLintProjectSettings settings) {
+  /**
+   * @return the project and global exclusions, as sent to the backend
+   */
+  public Set<String> getAllExclusions() {
+    return compiledExclusions.patterns();
+  }
+
+  /**
+   * Tells whether the file is excluded by the project or global exclusions, without querying the backend. Exclusions
+   * configured on the server side are not known here, so a negative answer is not definitive.
+   * Like the backend, patterns are matched against the path relative to the module, never against the absolute path:
+   * a directory above the project must not exclude its files.
+   */
+  public boolean isExcluded(Module module, VirtualFile file) {
+    var matcher = compiledExclusions.matcher();
+    if (matcher.isEmpty()) {
+      return false;
+    }
+    var relativePath = getRelativePathForAnalysis(module, file);
+    return relativePath != null && matcher.matches(relativePath);
+  }
+
+  private synchronized void onProjectSettingsChanged(SonarLintProjectSettings settings) {
+    projectExclusions = loadProjectExclusions(settings);
+    compile();
+  }
+
+  private synchronized void onGlobalSettingsChanged(SonarLintGlobalSettings settings) {
+    globalExclusions = loadGlobalExclusions(settings);
+    compile();
+  }
+
+  private void compile() {
+    var allExclusions = new HashSet<String>(projectExclusions);
+    allExclusions.addAll(globalExclusions);
+    var patterns = Set.copyOf(allExclusions);
+    compiledExclusions = new CompiledExclusions(patterns, new FileExclusionMatcher(patterns));
+  }
+
+  private static Set<String> loadGlobalExclusions(SonarLintGlobalSettings settings) {
+    return Set.copyOf(settings.getFileExclusions());
+  }
+
+  private static Set<String> loadProjectExclusions(SonarLintProjectSettings settings) {
     var projectExclusionsItems = settings.getFileExclusions().stream()
       .map(ExclusionItem::parse)
       .filter(Objects::nonNull)
@@ -106,12 +163,22 @@ public final class LocalFileExclusions {
     allExclusions.addAll(normalizedProjectDirExclusions);
     allExclusions.addAll(projectGlobExclusions);
 
-    projectExclusions = allExclusions;
+    return allExclusions;
   }
 
   private void subscribeToSettingsChanges(Project project) {
     var busConnection = project.getMessageBus().connect();
-    busConnection.subscribe(ProjectConfigurationListener.TOPIC, (ProjectConfigurationListener) this::loadProjectExclusions);
+    busConnection.subscribe(ProjectConfigurationListener.TOPIC, (ProjectConfigurationListener) this::onProjectSettingsChanged);
+    busConnection.subscribe(GlobalConfigurationListener.TOPIC, new GlobalConfigurationListener.Adapter() {
+      @Override
+      public void applied(SonarLintGlobalSettings previousSettings, SonarLintGlobalSettings newSettings) {
+        onGlobalSettingsChanged(newSettings);
+      }
+    });
+  }
+
+  private record CompiledExclusions(Set<String> patterns, FileExclusionMatcher matcher) {
+    private static final CompiledExclusions NONE = new CompiledExclusions(Set.of(), new FileExclusionMatcher(Set.of()));
   }
 
 }
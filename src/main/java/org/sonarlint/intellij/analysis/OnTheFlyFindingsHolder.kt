@@ -32,6 +32,8 @@ import org.sonarlint.intellij.common.util.SonarLintUtils
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.core.BackendService
 import org.sonarlint.intellij.editor.EditorHighlightRefresh
+import org.sonarlint.intellij.finding.Finding
+import org.sonarlint.intellij.finding.FindingsCount
 import org.sonarlint.intellij.finding.LiveFindings
 import org.sonarlint.intellij.finding.RawIssueAdapter
 import org.sonarlint.intellij.finding.hotspot.LiveSecurityHotspot
@@ -47,17 +49,23 @@ class OnTheFlyFindingsHolder(private val project: Project) : FileEditorManagerLi
     private var selectedFile: VirtualFile? = null
     private val currentIssuesPerOpenFile: MutableMap<VirtualFile, Collection<LiveIssue>> = ConcurrentHashMap()
     private val currentSecurityHotspotsPerOpenFile: MutableMap<VirtualFile, Collection<LiveSecurityHotspot>> = ConcurrentHashMap()
+    private val issuesCountPerOpenFile: MutableMap<VirtualFile, FindingsCount> = ConcurrentHashMap()
+    private val securityHotspotsCountPerOpenFile: MutableMap<VirtualFile, FindingsCount> = ConcurrentHashMap()
+    // Intermediate publications are streamed in bursts, the views are updated with batches of them
+    private val streamedFindings = StreamedFindingsBuffer { updateViewsWithNewFindings(it, refreshHighlights = false) }
 
     init {
         project.messageBus.connect()
             .subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, this)
     }
 
-    fun updateOnAnalysisResult(analysisResult: AnalysisResult) =
+    fun updateOnAnalysisResult(analysisResult: AnalysisResult) {
+        streamedFindings.discard(analysisResult.analyzedFiles + analysisResult.findings.filesInvolved)
         updateViewsWithNewFindings(analysisResult.findings, refreshHighlights = true)
+    }
 
     fun updateOnAnalysisIntermediateResult(intermediateResult: AnalysisIntermediateResult) =
-        updateViewsWithNewFindings(intermediateResult.findings, refreshHighlights = false)
+        streamedFindings.append(intermediateResult.findings)
 
     private fun updateViewsWithNewFindings(findings: LiveFindings, refreshHighlights: Boolean) {
         ensureSelectedFileIsSet()
@@ -68,8 +76,8 @@ class OnTheFlyFindingsHolder(private val project: Project) : FileEditorManagerLi
         // still have findings, so cleared files get their highlights removed.
         val previouslyHighlightedOpenFiles = currentIssuesPerOpenFile.keys + currentSecurityHotspotsPerOpenFile.keys
         with(filteredFindings) {
-            currentIssuesPerOpenFile.putAll(issuesPerFile)
-            currentSecurityHotspotsPerOpenFile.putAll(securityHotspotsPerFile)
+            putIssues(issuesPerFile)
+            putSecurityHotspots(securityHotspotsPerFile)
         }
         val changedFiles = (filteredFindings.filesInvolved + previouslyHighlightedOpenFiles).intersect(openedFiles)
         publishViewUpdate(
@@ -92,9 +100,14 @@ class OnTheFlyFindingsHolder(private val project: Project) : FileEditorManagerLi
             }
         }.toMap()
 
-        currentIssuesPerOpenFile.putAll(issues)
+        if (isIntermediate) {
+            streamedFindings.append(LiveFindings(issues, emptyMap()))
+            return
+        }
+        streamedFindings.discard(issues.keys)
+        putIssues(issues)
         ensureSelectedFileIsSet()
-        publishViewUpdate(if (isIntermediate) EditorHighlightRefresh.NONE else EditorHighlightRefresh.enabled(issues.keys))
+        publishViewUpdate(EditorHighlightRefresh.enabled(issues.keys))
     }
 
     fun updateViewsWithNewSecurityHotspots(module: Module, raisedSecurityHotspots: Map<URI, List<RaisedHotspotDto>>, isIntermediate: Boolean = false) {
@@ -110,10 +123,15 @@ class OnTheFlyFindingsHolder(private val project: Project) : FileEditorManagerLi
             }
         }.toMap()
 
-        currentSecurityHotspotsPerOpenFile.putAll(securityHotspots)
+        if (isIntermediate) {
+            streamedFindings.append(LiveFindings(emptyMap(), securityHotspots))
+            return
+        }
+        streamedFindings.discard(securityHotspots.keys)
+        putSecurityHotspots(securityHotspots)
         ensureSelectedFileIsSet()
         publishViewUpdate(
-            highlightRefresh = if (isIntermediate) EditorHighlightRefresh.NONE else EditorHighlightRefresh.enabled(securityHotspots.keys),
+            highlightRefresh = EditorHighlightRefresh.enabled(securityHotspots.keys),
             forceFullPanelRefresh = true,
         )
     }
@@ -127,6 +145,8 @@ class OnTheFlyFindingsHolder(private val project: Project) : FileEditorManagerLi
     override fun fileClosed(source: FileEditorManager, file: VirtualFile) {
         currentIssuesPerOpenFile.remove(file)
         currentSecurityHotspotsPerOpenFile.remove(file)
+        issuesCountPerOpenFile.remove(file)
+        securityHotspotsCountPerOpenFile.remove(file)
         // The closed editor no longer needs highlighting and other editors are unaffected, so never refresh highlights.
         if (currentIssuesPerOpenFile.isEmpty()) {
             updateCurrentFileTab()
@@ -159,13 +179,44 @@ class OnTheFlyFindingsHolder(private val project: Project) : FileEditorManagerLi
         return currentSecurityHotspotsPerOpenFile[file] ?: emptyList()
     }
 
+    fun getIssuesCountForFile(file: VirtualFile): FindingsCount {
+        return issuesCountPerOpenFile[file] ?: FindingsCount.NONE
+    }
+
+    fun getSecurityHotspotsCountForFile(file: VirtualFile): FindingsCount {
+        return securityHotspotsCountPerOpenFile[file] ?: FindingsCount.NONE
+    }
+
+    /**
+     * To be called when a finding is resolved or reopened, so that the counts of its file reflect the new status.
+     */
+    fun findingStatusChanged(finding: Finding) {
+        val file = finding.file() ?: return
+        currentIssuesPerOpenFile[file]?.let { issuesCountPerOpenFile[file] = FindingsCount.of(it) }
+        currentSecurityHotspotsPerOpenFile[file]?.let { securityHotspotsCountPerOpenFile[file] = FindingsCount.of(it) }
+    }
+
     fun clearAllCurrentFileFindings() {
         currentIssuesPerOpenFile.clear()
         currentSecurityHotspotsPerOpenFile.clear()
+        issuesCountPerOpenFile.clear()
+        securityHotspotsCountPerOpenFile.clear()
         // Findings are gone: refresh every open editor so their now-stale highlights are removed.
         updateCurrentFileTab(EditorHighlightRefresh.ALL_OPEN_FILES)
     }
 
+    private fun putIssues(issuesPerFile: Map<VirtualFile, Collection<LiveIssue>>) {
+        currentIssuesPerOpenFile.putAll(issuesPerFile)
+        issuesPerFile.forEach { (file, issues) -> issuesCountPerOpenFile[file] = FindingsCount.of(issues) }
+    }
+
+    private fun putSecurityHotspots(securityHotspotsPerFile: Map<VirtualFile, Collection<LiveSecurityHotspot>>) {
+        currentSecurityHotspotsPerOpenFile.putAll(securityHotspotsPerFile)
+        securityHotspotsPerFile.forEach { (file, securityHotspots) ->
+            securityHotspotsCountPerOpenFile[file] = FindingsCount.of(securityHotspots)
+        }
+    }
+
     private fun ensureSelectedFileIsSet() {
         if (selectedFile == null) {
             runOnUiThread(project) {
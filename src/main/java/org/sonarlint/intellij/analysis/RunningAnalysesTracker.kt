@@ -21,23 +21,116 @@ package org.sonarlint.intellij.analysis
 
 import com.intellij.openapi.components.Service
 import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import java.util.Collections
 import java.util.UUID
 import java.util.concurrent.ConcurrentHashMap
+import org.sonarlint.intellij.common.ui.SonarLintConsole
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.core.BackendService
 
+/**
+ * Keeps the state of the analyses submitted by the client until their final results are received.
+ *
+ * On-the-fly analyses are ordered by submission. When a newer one covers all the files of a running one of the same
+ * kind, the older one is cancelled, and results are not published for files that already show the results of a newer
+ * analysis.
+ *
+ * Analyses triggered by the backend itself (e.g. after an edit) are not tracked: the client cannot tell which of its
+ * notifications triggered them, so it has no reliable order to cancel them or to drop their results by.
+ */
 @Service(Service.Level.PROJECT)
 class RunningAnalysesTracker(private val project: Project) {
 
     private val analysisStateById: MutableMap<UUID, AnalysisState> = ConcurrentHashMap<UUID, AnalysisState>()
+    private val sequenceById = ConcurrentHashMap<UUID, Long>()
+    private val latestPublishedSequenceByFile = ConcurrentHashMap<VirtualFile, Long>()
+    private val supersededIds: MutableSet<UUID> = Collections.synchronizedSet(Collections.newSetFromMap(object : LinkedHashMap<UUID, Boolean>() {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<UUID, Boolean>) = size > MAX_SUPERSEDED_IDS
+    }))
+    private var lastSequence = 0L
 
     fun track(analysisState: AnalysisState) {
-        analysisState.id.let { analysisStateById[it] = analysisState }
+        val superseded = synchronized(this) {
+            val sequence = ++lastSequence
+            sequenceById[analysisState.id] = sequence
+            analysisStateById[analysisState.id] = analysisState
+            findSupersededBy(analysisState, sequence)
+        }
+        superseded.forEach { supersede(it, analysisState) }
+    }
+
+    private fun findSupersededBy(analysisState: AnalysisState, sequence: Long): List<AnalysisState> {
+        if (!analysisState.isSupersedable || analysisState.files.isEmpty()) {
+            return emptyList()
+        }
+        return analysisStateById.values.filter { running ->
+            running !== analysisState && running.isSupersedable && running.files.isNotEmpty()
+                && (sequenceById[running.id] ?: Long.MAX_VALUE) < sequence
+                && running.hasSameCallbackTypeAs(analysisState)
+                && analysisState.files.containsAll(running.files)
+        }
+    }
+
+    private fun supersede(analysisState: AnalysisState, newerAnalysisState: AnalysisState) {
+        supersededIds.add(analysisState.id)
+        SonarLintConsole.get(project).debug("Cancelling analysis ${analysisState.id}, superseded by analysis ${newerAnalysisState.id}")
+        getService(BackendService::class.java).cancelTask(analysisState.id.toString())
+        finish(analysisState)
+    }
+
+    /**
+     * Whether the analysis was cancelled because a newer one covers its files. Its late results should be ignored.
+     */
+    fun isSuperseded(analysisId: UUID) = supersededIds.contains(analysisId)
+
+    /**
+     * Records that the given analysis publishes its results for [files], and returns the files for which a newer analysis
+     * already published results. Those should not be overwritten with the older results.
+     */
+    fun publishResults(analysisState: AnalysisState, files: Set<VirtualFile>): Set<VirtualFile> {
+        if (!analysisState.isSupersedable) {
+            return emptySet()
+        }
+        synchronized(this) {
+            val sequence = sequenceById[analysisState.id] ?: return emptySet()
+            val outdatedFiles = files.filterTo(HashSet()) { (latestPublishedSequenceByFile[it] ?: 0L) > sequence }
+            (files - outdatedFiles).forEach { latestPublishedSequenceByFile[it] = sequence }
+            return outdatedFiles
+        }
     }
 
     fun finish(analysisState: AnalysisState) {
+        if (analysisStateById.remove(analysisState.id) == null) {
+            // Already finished, e.g. superseded while its final results were being received
+            return
+        }
+        synchronized(this) {
+            sequenceById.remove(analysisState.id)
+            if (analysisStateById.values.none { it.isSupersedable }) {
+                // No running analysis can be older than the published results anymore
+                latestPublishedSequenceByFile.clear()
+            }
+        }
         getService(project, AnalysisStatus::class.java).stopRun(analysisState.id)
-        analysisStateById.remove(analysisState.id)
+        getService(project, AnalysisScheduler::class.java).analysisFinished(analysisState.id)
+    }
+
+    /**
+     * Cancels the analysis in the backend and releases its scheduling slot right away: a cancelled analysis may never
+     * report its end.
+     */
+    fun cancel(analysisId: UUID) {
+        getService(BackendService::class.java).cancelTask(analysisId.toString())
+        analysisStateById[analysisId]?.let { finish(it) }
+            ?: getService(project, AnalysisScheduler::class.java).analysisFinished(analysisId)
+    }
+
+    /**
+     * The analyses running in a backend that exited will never report their end.
+     */
+    fun backendExited() {
+        analysisStateById.values.toList().forEach { finish(it) }
     }
 
     fun getById(analysisId: UUID): AnalysisState? {
@@ -54,6 +147,15 @@ class RunningAnalysesTracker(private val project: Project) {
             getService(BackendService::class.java).cancelTask(uuid.toString())
         }
         analysisStateById.clear()
+        synchronized(this) {
+            sequenceById.clear()
+            latestPublishedSequenceByFile.clear()
+        }
+        getService(project, AnalysisScheduler::class.java).clear()
+    }
+
+    companion object {
+        private const val MAX_SUPERSEDED_IDS = 100
     }
 
 }
@@ -0,0 +1,102 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.analysis
+
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.concurrency.AppExecutorUtil
+import java.util.concurrent.TimeUnit
+import org.sonarlint.intellij.finding.LiveFindings
+import org.sonarlint.intellij.finding.hotspot.LiveSecurityHotspot
+import org.sonarlint.intellij.finding.issue.LiveIssue
+
+/**
+ * Collects the findings streamed by intermediate publications and hands them to [onFlush] in batches, at most once every
+ * [flushIntervalMs]: a burst of publications results in a single view update. A file streamed several times before a
+ * flush is only handed over with its latest findings.
+ */
+class StreamedFindingsBuffer @JvmOverloads constructor(
+    private val flushIntervalMs: Long = DEFAULT_FLUSH_INTERVAL_MS,
+    private val onFlush: (LiveFindings) -> Unit,
+) {
+
+    private val flushLock = Any()
+    private var pendingIssues = LinkedHashMap<VirtualFile, Collection<LiveIssue>>()
+    private var pendingHotspots = LinkedHashMap<VirtualFile, Collection<LiveSecurityHotspot>>()
+    private var isFlushScheduled = false
+
+    fun append(findings: LiveFindings) {
+        if (findings.filesInvolved.isEmpty()) {
+            return
+        }
+        synchronized(this) {
+            pendingIssues.putAll(findings.issuesPerFile)
+            pendingHotspots.putAll(findings.securityHotspotsPerFile)
+            if (!isFlushScheduled) {
+                isFlushScheduled = true
+                AppExecutorUtil.getAppScheduledExecutorService().schedule(::flush, flushIntervalMs, TimeUnit.MILLISECONDS)
+            }
+        }
+    }
+
+    /**
+     * Drops the pending findings of [files], to be called before publishing their final findings. Waits for a flush in
+     * progress, so that outdated findings cannot be handed over after the final ones.
+     */
+    fun discard(files: Collection<VirtualFile>) {
+        synchronized(flushLock) {
+            synchronized(this) {
+                pendingIssues.keys.removeAll(files.toSet())
+                pendingHotspots.keys.removeAll(files.toSet())
+            }
+        }
+    }
+
+    /**
+     * Drops all the pending findings, e.g. when the analysis failed and no final findings will follow.
+     */
+    fun discardAll() {
+        synchronized(flushLock) {
+            synchronized(this) {
+                pendingIssues.clear()
+                pendingHotspots.clear()
+            }
+        }
+    }
+
+    fun flush() {
+        synchronized(flushLock) {
+            val findings = synchronized(this) {
+                isFlushScheduled = false
+                LiveFindings(pendingIssues, pendingHotspots).also {
+                    pendingIssues = LinkedHashMap()
+                    pendingHotspots = LinkedHashMap()
+                }
+            }
+            if (findings.filesInvolved.isNotEmpty()) {
+                onFlush(findings)
+            }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_FLUSH_INTERVAL_MS = 300L
+    }
+
+}
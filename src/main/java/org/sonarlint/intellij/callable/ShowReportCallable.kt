@@ -21,7 +21,9 @@ package org.sonarlint.intellij.callable
 
 import com.intellij.openapi.project.Project
 import org.sonarlint.intellij.analysis.AnalysisCallback
+import org.sonarlint.intellij.analysis.AnalysisIntermediateResult
 import org.sonarlint.intellij.analysis.AnalysisResult
+import org.sonarlint.intellij.analysis.StreamedFindingsBuffer
 import org.sonarlint.intellij.common.util.SonarLintUtils
 import org.sonarlint.intellij.editor.CodeAnalyzerRestarter
 import org.sonarlint.intellij.ui.UiUtils.Companion.runOnUiThread
@@ -31,6 +33,11 @@ class ShowReportCallable(private val project: Project, private val expectedModul
 
     private val batchId: String = generateBatchId()
     private var completedModuleCount = 0
+    private val streamedFindings = StreamedFindingsBuffer { findings ->
+        runOnUiThread(project) {
+            SonarLintUtils.getService(project, ReportTabManager::class.java).appendIntermediateFindings(batchId, findings)
+        }
+    }
     
     init {
         // Create loading tab immediately
@@ -40,7 +47,12 @@ class ShowReportCallable(private val project: Project, private val expectedModul
         }
     }
 
+    override fun onIntermediateResult(intermediateResult: AnalysisIntermediateResult) {
+        streamedFindings.append(intermediateResult.findings)
+    }
+
     override fun onSuccess(analysisResult: AnalysisResult) {
+        streamedFindings.discard(analysisResult.analyzedFiles + analysisResult.findings.filesInvolved)
         // All UI operations must run on EDT, with synchronization happening on EDT
         runOnUiThread(project) {
             synchronized(this@ShowReportCallable) {
@@ -53,7 +65,15 @@ class ShowReportCallable(private val project: Project, private val expectedModul
     }
 
     override fun onError(e: Throwable) {
-        // For errors, we don't need to do anything special - just let the existing tab remain
+        // The existing tab remains, only the findings streamed by the failed analysis are dropped
+        streamedFindings.discardAll()
+        runOnUiThread(project) {
+            synchronized(this@ShowReportCallable) {
+                completedModuleCount++
+                SonarLintUtils.getService(project, ReportTabManager::class.java)
+                    .analysisFailed(batchId, completedModuleCount, expectedModuleCount)
+            }
+        }
     }
     
     companion object {
@@ -19,27 +19,118 @@
  */
 package org.sonarlint.intellij.cayc
 
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.components.Service
 import com.intellij.openapi.project.Project
 import java.util.Locale
+import java.util.concurrent.TimeUnit
+import org.jetbrains.annotations.VisibleForTesting
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
+import org.sonarlint.intellij.config.global.SonarLintGlobalSettings
+import org.sonarlint.intellij.connected.SonarProjectBranchListener
 import org.sonarlint.intellij.core.BackendService
+import org.sonarlint.intellij.messages.GlobalConfigurationListener
+import org.sonarlint.intellij.messages.PROJECT_BINDING_TOPIC
+import org.sonarlint.intellij.messages.ProjectBindingListener
+import org.sonarlint.intellij.messages.ProjectConfigurationListener
 import org.sonarlint.intellij.util.runOnPooledThread
 
+/**
+ * Caches the description of the new code period displayed in the finding trees.
+ *
+ * The period only changes with the binding, the matched branch or the settings, so it is refreshed on those events.
+ * Findings publications only trigger a refresh once the cached value is older than [TTL_MS], to pick up changes of the
+ * new code definition on the server. Concurrent refreshes are coalesced into a single backend request.
+ */
 @Service(Service.Level.PROJECT)
-class NewCodePeriodCache(private val project: Project) {
-    var periodAsString: String = "(unknown code period)"
+class NewCodePeriodCache(private val project: Project) : Disposable {
+    @Volatile
+    var periodAsString: String = UNKNOWN_PERIOD
+        private set
+
+    private val lock = Any()
+    private var refreshInProgress = false
+    private var refreshRequestedDuringProgress = false
+    private var lastRefreshNanos: Long? = null
+
+    @VisibleForTesting
+    internal var nanoTime: () -> Long = System::nanoTime
+
+    init {
+        project.messageBus.connect(this).apply {
+            subscribe(PROJECT_BINDING_TOPIC, ProjectBindingListener { refreshAsync() })
+            subscribe(SonarProjectBranchListener.TOPIC, SonarProjectBranchListener { _, _ -> refreshAsync() })
+            subscribe(ProjectConfigurationListener.TOPIC, ProjectConfigurationListener { refreshAsync() })
+        }
+        ApplicationManager.getApplication().messageBus.connect(this)
+            .subscribe(GlobalConfigurationListener.TOPIC, object : GlobalConfigurationListener.Adapter() {
+                override fun applied(previousSettings: SonarLintGlobalSettings, newSettings: SonarLintGlobalSettings) {
+                    refreshAsync()
+                }
+            })
+    }
+
+    /**
+     * Refreshes the period only if the cached value expired. Cheap enough to be called on every findings publication.
+     */
+    fun refreshIfExpired() {
+        synchronized(lock) {
+            val lastRefresh = lastRefreshNanos
+            val isExpired = lastRefresh == null || nanoTime() - lastRefresh > TimeUnit.MILLISECONDS.toNanos(TTL_MS)
+            if (refreshInProgress || !isExpired) {
+                return
+            }
+            refreshInProgress = true
+        }
+        fetchPeriod()
+    }
 
+    /**
+     * Refreshes the period now. If a refresh is already running, another one is done right after it, as the running one
+     * might be answered for the previous configuration.
+     */
     fun refreshAsync() {
+        synchronized(lock) {
+            if (refreshInProgress) {
+                refreshRequestedDuringProgress = true
+                return
+            }
+            refreshInProgress = true
+        }
+        fetchPeriod()
+    }
+
+    private fun fetchPeriod() {
         runOnPooledThread(project) {
             getService(BackendService::class.java).getNewCodePeriodText(project)
-                .thenAccept { period ->
-                    periodAsString = period.replaceFirstChar { char ->
-                        char.lowercase(
-                            Locale.getDefault()
-                        )
+                .whenComplete { period, _ ->
+                    // A failed request keeps the last known period, but leaves the cache expired to retry on the next publication
+                    if (period != null) {
+                        periodAsString = period.replaceFirstChar { char ->
+                            char.lowercase(
+                                Locale.getDefault()
+                            )
+                        }
+                    }
+                    val refreshAgain = synchronized(lock) {
+                        refreshInProgress = false
+                        lastRefreshNanos = if (period != null) nanoTime() else null
+                        refreshRequestedDuringProgress.also { refreshRequestedDuringProgress = false }
+                    }
+                    if (refreshAgain) {
+                        refreshAsync()
                     }
                 }
         }
     }
+
+    override fun dispose() {
+        // Only a parent for the listeners of the binding and settings changes
+    }
+
+    companion object {
+        private const val UNKNOWN_PERIOD = "(unknown code period)"
+        private const val TTL_MS = 10 * 60 * 1000L
+    }
 }
@@ -23,10 +23,15 @@ import com.intellij.ide.passwordSafe.PasswordSafe
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.components.Service
 import java.util.Objects
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
 import org.apache.commons.lang3.BooleanUtils
 import org.sonarlint.intellij.config.global.ServerConnection
 import org.sonarlint.intellij.messages.CredentialsChangeListener
+import org.sonarlint.intellij.util.GlobalLogOutput
 import org.sonarlint.intellij.util.computeOnPooledThread
+import org.sonarsource.sonarlint.core.client.utils.ClientLogOutput
 import org.sonarsource.sonarlint.core.rpc.protocol.common.Either
 import org.sonarsource.sonarlint.core.rpc.protocol.common.TokenDto
 import org.sonarsource.sonarlint.core.rpc.protocol.common.UsernamePasswordDto
@@ -34,11 +39,27 @@ import org.sonarsource.sonarlint.core.rpc.protocol.common.UsernamePasswordDto
 @Service(Service.Level.APP)
 class CredentialsService {
 
+    /**
+     * Credentials already read from the store, by connection name. The backend asks for them for each server request,
+     * and a lookup in the system credential storage can be slow. Only kept in memory, and dropped whenever the
+     * credentials of the connection are saved, erased or reported as invalid.
+     */
+    private val cachedCredentials = ConcurrentHashMap<String, Either<TokenDto, UsernamePasswordDto>>()
+    private val invalidations = AtomicLong()
+
     @Throws(CredentialsException::class)
     fun getCredentials(connection: ServerConnection): Either<TokenDto, UsernamePasswordDto> {
+        cachedCredentials[connection.name]?.let { return it }
+
+        val generation = invalidations.get()
+        val start = System.nanoTime()
         val result = computeOnPooledThread("Getting credentials from store...") {
             readCredentials(connection)
         }
+        GlobalLogOutput.get().log(
+            "Read credentials of connection '${connection.name}' from the store in ${TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)} ms",
+            ClientLogOutput.Level.DEBUG
+        )
         if (result == null) {
             throw CredentialsException(
                 """
@@ -47,9 +68,19 @@ class CredentialsService {
                     Check your IDE's password storage settings in Settings > Appearance & Behavior > System Settings > Passwords."""
             )
         }
+        cachedCredentials[connection.name] = result
+        if (invalidations.get() != generation) {
+            // The credentials changed while being read, what was read may be outdated
+            cachedCredentials.remove(connection.name, result)
+        }
         return result
     }
 
+    fun invalidateCredentials(connectionName: String) {
+        invalidations.incrementAndGet()
+        cachedCredentials.remove(connectionName)
+    }
+
     @Throws(CredentialsException::class)
     private fun readCredentials(connection: ServerConnection): Either<TokenDto, UsernamePasswordDto> {
         val token = PasswordSafe.instance.getToken(connection.name)
@@ -77,7 +108,6 @@ class CredentialsService {
         val success = computeOnPooledThread("Saving credentials...") {
             writeCredentials(credentials, connectionName)
         }
-
         if (BooleanUtils.isNotTrue(success)) {
             throw CredentialsException(
                 """
@@ -110,6 +140,9 @@ class CredentialsService {
         } else {
             return false
         }
+        // After writing, so that a read started before is not cached, and before notifying, so that listeners read the
+        // new credentials
+        invalidateCredentials(connectionName)
 
         if (isEdit) {
             ApplicationManager.getApplication().messageBus.syncPublisher(CredentialsChangeListener.TOPIC)
@@ -122,5 +155,6 @@ class CredentialsService {
         val passwordSafe = PasswordSafe.instance
         passwordSafe.eraseToken(connection.name)
         passwordSafe.eraseUsernamePassword(connection.name)
+        invalidateCredentials(connection.name)
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core
+
+import com.intellij.util.concurrency.AppExecutorUtil
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import org.sonarlint.intellij.util.GlobalLogOutput
+import org.sonarsource.sonarlint.core.client.utils.ClientLogOutput
+
+/**
+ * Runs the work related to the backend, instead of the JVM-wide common pool shared with the IDE and other plugins.
+ * Records the queue depth and the time tasks wait before running, to diagnose slow interactions with the backend.
+ */
+class BackendExecutor(private val name: String, private val delegate: Executor) : Executor {
+
+    private val queuedTasks = AtomicInteger()
+    private val maxQueuedTasks = AtomicInteger()
+    private val completedTasks = AtomicLong()
+    private val totalWaitNanos = AtomicLong()
+    private val maxWaitNanos = AtomicLong()
+    private val totalRunNanos = AtomicLong()
+
+    override fun execute(command: Runnable) {
+        val submittedAt = System.nanoTime()
+        val queued = queuedTasks.incrementAndGet()
+        maxQueuedTasks.accumulateAndGet(queued) { current, new -> maxOf(current, new) }
+        try {
+            delegate.execute { run(command, submittedAt) }
+        } catch (e: RuntimeException) {
+            queuedTasks.decrementAndGet()
+            throw e
+        }
+    }
+
+    private fun run(command: Runnable, submittedAt: Long) {
+        val startedAt = System.nanoTime()
+        queuedTasks.decrementAndGet()
+        val waitNanos = startedAt - submittedAt
+        totalWaitNanos.addAndGet(waitNanos)
+        maxWaitNanos.accumulateAndGet(waitNanos) { current, new -> maxOf(current, new) }
+        if (waitNanos > SLOW_START_THRESHOLD_NANOS) {
+            GlobalLogOutput.get().log(
+                "Task waited ${TimeUnit.NANOSECONDS.toMillis(waitNanos)} ms in the '$name' queue (${queuedTasks.get()} still queued)",
+                ClientLogOutput.Level.DEBUG
+            )
+        }
+        try {
+            command.run()
+        } finally {
+            totalRunNanos.addAndGet(System.nanoTime() - startedAt)
+            completedTasks.incrementAndGet()
+        }
+    }
+
+    fun getMetrics(): Metrics {
+        val completed = completedTasks.get()
+        return Metrics(
+            name,
+            queuedTasks.get(),
+            maxQueuedTasks.get(),
+            completed,
+            if (completed == 0L) 0 else TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / completed),
+            TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+            if (completed == 0L) 0 else TimeUnit.NANOSECONDS.toMillis(totalRunNanos.get() / completed),
+        )
+    }
+
+    data class Metrics(
+        val name: String,
+        val queuedTasks: Int,
+        val maxQueuedTasks: Int,
+        val completedTasks: Long,
+        val averageWaitMillis: Long,
+        val maxWaitMillis: Long,
+        val averageRunMillis: Long,
+    )
+
+    companion object {
+        private val SLOW_START_THRESHOLD_NANOS = TimeUnit.SECONDS.toNanos(1)
+
+        fun create(name: String, maxThreads: Int) =
+            BackendExecutor(name, AppExecutorUtil.createBoundedApplicationPoolExecutor(name, maxThreads))
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core
+
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.Properties
+
+/**
+ * Computes the JVM options of the backend process.
+ *
+ * The heap and GC options can be replaced on a given machine with the `sonarlint.backend.jvm.options` system property.
+ * When the runtime supports it (JDK 19+), a dynamic class-data sharing archive is created on the first run and reused by
+ * the following ones, which saves most of the class loading and verification time of a cold start. The JVM rebuilds
+ * the archive by itself when it does not match the runtime or the classpath anymore, e.g. after a plugin update.
+ */
+object BackendJvmOptions {
+
+    const val JVM_OPTIONS_PROPERTY = "sonarlint.backend.jvm.options"
+    const val CDS_DISABLED_PROPERTY = "sonarlint.backend.cds.disabled"
+    const val DEFAULT_JVM_OPTIONS = "-Xms384m -XX:+UseG1GC -XX:MaxGCPauseMillis=200"
+    private const val AUTO_CREATE_SHARED_ARCHIVE_MIN_JAVA_VERSION = 19
+    private const val ARCHIVE_FILE_NAME = "sloop.jsa"
+
+    fun compute(jreHomePath: Path?, archivePath: Path?): String {
+        val jvmOptions = System.getProperty(JVM_OPTIONS_PROPERTY)?.takeIf { it.isNotBlank() }?.trim() ?: DEFAULT_JVM_OPTIONS
+        val isCdsEnabled = !System.getProperty(CDS_DISABLED_PROPERTY).toBoolean()
+        return compute(jvmOptions, if (isCdsEnabled) readJavaMajorVersion(jreHomePath) else null, archivePath)
+    }
+
+    fun compute(jvmOptions: String, javaMajorVersion: Int?, archivePath: Path?): String {
+        if (archivePath == null || javaMajorVersion == null || javaMajorVersion < AUTO_CREATE_SHARED_ARCHIVE_MIN_JAVA_VERSION
+            // The launcher splits options on spaces
+            || archivePath.toString().any { it.isWhitespace() }
+            // Let the user-provided class-data sharing options win
+            || jvmOptions.contains("SharedArchiveFile") || jvmOptions.contains("-Xshare")
+        ) {
+            return jvmOptions
+        }
+        return "$jvmOptions -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=$archivePath"
+    }
+
+    /**
+     * Returns the path of the class-data sharing archive in [archiveDir], creating the directory if needed. The name does
+     * not depend on the plugin version, as the JVM rebuilds an archive that no longer matches the classpath.
+     */
+    @Throws(IOException::class)
+    fun prepareArchivePath(archiveDir: Path): Path = Files.createDirectories(archiveDir).resolve(ARCHIVE_FILE_NAME)
+
+    fun readJavaMajorVersion(jreHomePath: Path?): Int? {
+        val releaseFile = jreHomePath?.resolve("release") ?: return null
+        if (!Files.isRegularFile(releaseFile)) {
+            return null
+        }
+        val properties = Properties()
+        try {
+            Files.newBufferedReader(releaseFile).use { properties.load(it) }
+        } catch (_: IOException) {
+            return null
+        }
+        return parseJavaMajorVersion(properties.getProperty("JAVA_VERSION")?.trim('"'))
+    }
+
+    fun parseJavaMajorVersion(javaVersion: String?): Int? {
+        val parts = javaVersion?.split('.', '-', '+', '_') ?: return null
+        val major = parts.firstOrNull()?.toIntOrNull() ?: return null
+        // Before Java 9, versions were like 1.8.0_402
+        return if (major == 1) parts.getOrNull(1)?.toIntOrNull() else major
+    }
+
+}
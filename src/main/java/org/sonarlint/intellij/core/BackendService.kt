@@ -46,6 +46,7 @@ import java.time.format.DateTimeParseException
 import java.util.UUID
 import java.util.concurrent.CancellationException
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.TimeoutException
 import java.util.concurrent.atomic.AtomicBoolean
@@ -53,6 +54,7 @@ import java.util.logging.Filter
 import java.util.logging.Level
 import java.util.logging.Logger
 import org.apache.commons.io.FileUtils
+import org.jetbrains.annotations.VisibleForTesting
 import org.sonarlint.intellij.SonarLintIntelliJClient
 import org.sonarlint.intellij.SonarLintPlugin
 import org.sonarlint.intellij.actions.RestartBackendAction.Companion.SONARLINT_ERROR_MSG
@@ -61,6 +63,8 @@ import org.sonarlint.intellij.actions.SonarLintToolWindow
 import org.sonarlint.intellij.analysis.AnalysisSubmitter
 import org.sonarlint.intellij.analysis.AnalysisSubmitter.Companion.collectContributedLanguages
 import org.sonarlint.intellij.analysis.GlobalBackgroundTaskTracker
+import org.sonarlint.intellij.analysis.LocalFileExclusions
+import org.sonarlint.intellij.analysis.RunningAnalysesTracker
 import org.sonarlint.intellij.common.ui.ReadActionUtils.Companion.computeReadActionSafely
 import org.sonarlint.intellij.common.ui.SonarLintConsole
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
@@ -76,6 +80,7 @@ import org.sonarlint.intellij.fs.VirtualFileEvent
 import org.sonarlint.intellij.messages.CredentialsChangeListener
 import org.sonarlint.intellij.messages.GlobalConfigurationListener
 import org.sonarlint.intellij.monitoring.MonitoringService
+import org.sonarlint.intellij.notifications.SonarLintProjectNotifications
 import org.sonarlint.intellij.notifications.SonarLintProjectNotifications.Companion.projectLessNotification
 import org.sonarlint.intellij.promotion.UtmParameters
 import org.sonarlint.intellij.ui.UiUtils.Companion.runOnUiThread
@@ -188,6 +193,11 @@ class BackendService : Disposable {
     private var sloop: Sloop? = null
     private var defaultSloopLauncher: SloopLauncher? = null
     private var intentionalRestart = AtomicBoolean(false)
+    @Volatile
+    private var backendLogLevel: LogLevel? = null
+    // A single thread sends the requests and notifications, in the order they were made; their results are processed apart
+    private val dispatchExecutor = BackendExecutor.create("SonarLint Backend Dispatch", 1)
+    private val resultExecutor = BackendExecutor.create("SonarLint Backend Results", RESULT_THREADS)
 
     constructor()
 
@@ -229,11 +239,11 @@ class BackendService : Disposable {
     }
 
     private fun <T> requestFromBackend(action: (SonarLintRpcServer) -> CompletableFuture<T>): CompletableFuture<T> {
-        return ensureBackendInitialized().thenComposeAsync(action)
+        return ensureBackendInitialized().thenComposeAsync(action, dispatchExecutor)
     }
 
     private fun notifyBackend(action: (SonarLintRpcServer) -> Unit) {
-        ensureBackendInitialized().thenAcceptAsync(action)
+        ensureBackendInitialized().thenAcceptAsync(action, dispatchExecutor)
     }
 
     private fun ensureBackendInitialized(): CompletableFuture<SonarLintRpcServer> {
@@ -255,10 +265,13 @@ class BackendService : Disposable {
         return object : Task.Backgroundable(null, "Starting SonarQube for IDE service\u2026", false, ALWAYS_BACKGROUND) {
             override fun run(indicator: ProgressIndicator) {
                 try {
+                    val startTime = System.nanoTime()
                     val sloop = startSloopProcess()
                     this@BackendService.sloop = sloop
+                    val processStartedTime = System.nanoTime()
                     getService(GlobalLogOutput::class.java).log("Migrating the storage...", ClientLogOutput.Level.INFO)
                     migrateStoragePath()
+                    val storageMigratedTime = System.nanoTime()
                     getService(GlobalLogOutput::class.java).log(
                         "Listening for SonarQube for IDE service exit...",
                         ClientLogOutput.Level.INFO
@@ -269,7 +282,14 @@ class BackendService : Disposable {
                         ClientLogOutput.Level.INFO
                     )
                     initRpcServer(sloop.rpcServer)[1, TimeUnit.MINUTES]
-                    getService(GlobalLogOutput::class.java).log("SonarQube for IDE service initialized...", ClientLogOutput.Level.INFO)
+                    val initializedTime = System.nanoTime()
+                    getService(GlobalLogOutput::class.java).log(
+                        "SonarQube for IDE service initialized in ${TimeUnit.NANOSECONDS.toMillis(initializedTime - startTime)} ms " +
+                            "(process start: ${TimeUnit.NANOSECONDS.toMillis(processStartedTime - startTime)} ms, " +
+                            "storage migration: ${TimeUnit.NANOSECONDS.toMillis(storageMigratedTime - processStartedTime)} ms, " +
+                            "initialization: ${TimeUnit.NANOSECONDS.toMillis(initializedTime - storageMigratedTime)} ms)",
+                        ClientLogOutput.Level.INFO
+                    )
                     backendFuture.complete(sloop.rpcServer)
                 } catch (_: TimeoutException) {
                     GlobalLogOutput.get().log(
@@ -305,23 +325,41 @@ class BackendService : Disposable {
         }
         val jreHomePath = customJrePath ?: getPathProperty("java.home")
         val sloopPath = getService(SonarLintPlugin::class.java).path.resolve("sloop")
-        getService(GlobalLogOutput::class.java).log("Listing SonarQube for IDE service files:", ClientLogOutput.Level.INFO)
-        sloopPath.toFile().walkTopDown().forEach { file ->
-            getService(GlobalLogOutput::class.java).log(file.absolutePath, ClientLogOutput.Level.INFO)
-        }
+        // Only useful to diagnose broken installations, it does not need to delay the start
+        runOnPooledThread { logSloopFiles(sloopPath) }
+        val jvmOptions = BackendJvmOptions.compute(jreHomePath, getClassDataSharingArchivePath())
+        getService(GlobalLogOutput::class.java).log("SonarQube for IDE service JVM options: $jvmOptions", ClientLogOutput.Level.DEBUG)
         return sloopLauncher.start(
             sloopPath,
             jreHomePath,
-            "-Xms384m -XX:+UseG1GC -XX:MaxGCPauseMillis=200"
+            jvmOptions
         )
     }
 
+    private fun logSloopFiles(sloopPath: Path) {
+        val files = sloopPath.toFile().walkTopDown().joinToString("\n") { it.absolutePath }
+        getService(GlobalLogOutput::class.java).log("SonarQube for IDE service files:\n$files", ClientLogOutput.Level.DEBUG)
+    }
+
+    private fun getClassDataSharingArchivePath(): Path? {
+        val archiveDir = Paths.get(PathManager.getSystemPath()).resolve("sonarlint/cds")
+        return try {
+            BackendJvmOptions.prepareArchivePath(archiveDir)
+        } catch (e: IOException) {
+            GlobalLogOutput.get().log("Cannot prepare the class-data sharing archive directory: ${e.message}", ClientLogOutput.Level.DEBUG)
+            null
+        }
+    }
+
     private fun listenForProcessExit(sloopProcess: Sloop) {
-        sloopProcess.onExit().thenAcceptAsync { handleSloopExited() }
+        sloopProcess.onExit().thenAcceptAsync({ handleSloopExited() }, resultExecutor)
     }
 
     private fun handleSloopExited() {
         ProjectManager.getInstance().openProjects.forEach { project ->
+            if (!project.isDisposed) {
+                getService(project, RunningAnalysesTracker::class.java).backendExited()
+            }
             runOnUiThread(project) {
                 getService(project, SonarLintToolWindow::class.java).refreshViews()
             }
@@ -338,6 +376,24 @@ class BackendService : Disposable {
         }
     }
 
+    /**
+     * The backend log level is given at initialization, the protocol cannot change it afterward. When the verbose output
+     * gets enabled, or a project with verbose output is opened, while the backend only sends informative logs, the user is
+     * offered to restart the backend, which applies the new level.
+     */
+    fun verboseOutputChanged(project: Project) {
+        val currentLevel = backendLogLevel ?: return
+        if (getSettingsFor(project).isVerboseEnabled && currentLevel != LogLevel.DEBUG && currentLevel != LogLevel.TRACE) {
+            val message = "Debug logs of the SonarQube for IDE service will be available after restarting it"
+            SonarLintConsole.get(project).info(message)
+            SonarLintProjectNotifications.get(project).simpleNotification(null, message, NotificationType.INFORMATION, RestartBackendNotificationAction())
+        }
+    }
+
+    fun getBackendLogLevel() = backendLogLevel
+
+    fun getExecutorMetrics() = listOf(dispatchExecutor.getMetrics(), resultExecutor.getMetrics())
+
     fun getPid(): Long? {
         return sloop?.pid
     }
@@ -381,7 +437,7 @@ class BackendService : Disposable {
                 LanguageSpecificRequirements(jsTsRequirements, null),
                 getGlobalSettings().isAutoTrigger,
                 null,
-                LogLevel.DEBUG
+                computeBackendLogLevel(ProjectManager.getInstance().openProjects.toList()).also { backendLogLevel = it }
             )
         )
     }
@@ -482,7 +538,7 @@ class BackendService : Disposable {
     }
 
     fun isTelemetryEnabled(): CompletableFuture<Boolean> {
-        return requestFromBackend { it.telemetryService.status }.thenApplyAsync { status -> status.isEnabled }
+        return requestFromBackend { it.telemetryService.status }.thenApplyAsync({ status -> status.isEnabled }, resultExecutor)
     }
 
     fun getAllProjects(server: ServerConnection): CompletableFuture<GetAllProjectsResponse> {
@@ -548,13 +604,16 @@ class BackendService : Disposable {
             return null
         }
         projectsOpened.add(project)
+        verboseOutputChanged(project)
         val binding = getService(project, ProjectBindingManager::class.java).binding
         return toBackendConfigurationScope(project, binding)
     }
 
     fun projectClosed(project: Project) {
         projectsOpened.remove(project)
-        ModuleManager.getInstance(project).modules.forEach { moduleRemoved(it) }
+        if (!project.isDisposed) {
+            moduleScopesRemoved(ModuleManager.getInstance(project).modules.map { moduleId(it) })
+        }
         val projectId = projectId(project)
         notifyBackend { it.configurationService.didRemoveConfigurationScope(DidRemoveConfigurationScopeParams(projectId)) }
         getService(GlobalBackgroundTaskTracker::class.java).cleanupTasksForProject(project)
@@ -639,33 +698,13 @@ class BackendService : Disposable {
             BindingConfigurationDto(projectBinding?.connectionName, projectBinding?.let { moduleProjectKey }, true))
     }
 
-    fun moduleRemoved(module: Module) {
-        val project = module.project
-        val moduleId = moduleId(module)
-        
-        // Don't remove if project is disposed (cleanup will happen via projectClosed)
-        if (project.isDisposed) {
-            GlobalLogOutput.get().log("Skipping module removal for '$moduleId' - project is disposed", ClientLogOutput.Level.DEBUG)
-            return
-        }
-        
-        // Verify the module is actually gone from the project
-        // This handles the race condition where a module is removed and immediately re-added
-        // during project opening/reloading
-        if (projectsOpened.contains(project)) {
-            val moduleStillExists = computeReadActionSafely(project) {
-                ModuleManager.getInstance(project).modules.any { existingModule ->
-                    moduleId(existingModule) == moduleId
-                }
-            } ?: false
-            
-            if (moduleStillExists) {
-                GlobalLogOutput.get().log("Skipping module removal for '$moduleId' - module with same ID still exists (likely reloaded)", ClientLogOutput.Level.DEBUG)
-                return
-            }
+    /**
+     * Removes the configuration scopes of modules that are known to be gone, without checking the module model again.
+     */
+    fun moduleScopesRemoved(moduleIds: Collection<String>) {
+        moduleIds.forEach { moduleId ->
+            notifyBackend { it.configurationService.didRemoveConfigurationScope(DidRemoveConfigurationScopeParams(moduleId)) }
         }
-        
-        notifyBackend { it.configurationService.didRemoveConfigurationScope(DidRemoveConfigurationScopeParams(moduleId)) }
     }
 
     fun moduleUnbound(module: Module) {
@@ -878,13 +917,16 @@ class BackendService : Disposable {
         return requestFromBackend { it.connectionService.getOrganization(params) }
     }
 
-    fun getNewCodePeriodText(project: Project): CompletableFuture<String> {
+    /**
+     * Completes with the description of the new code period, or with null if it could not be retrieved.
+     */
+    fun getNewCodePeriodText(project: Project): CompletableFuture<String?> {
         // simplification as we ignore module bindings
         return requestFromBackend { it.newCodeService.getNewCodeDefinition(GetNewCodeDefinitionParams(projectId(project))) }
-            .thenApplyAsync { response -> if (response.isSupported) response.description else "(unsupported new code definition)" }
+            .thenApplyAsync<String?>({ response -> if (response.isSupported) response.description else "(unsupported new code definition)" }, resultExecutor)
             .exceptionally { e ->
                 SonarLintConsole.get(project).error("Error while getting new code period", e)
-                "(unknown code period)"
+                null
             }
     }
 
@@ -920,7 +962,7 @@ class BackendService : Disposable {
             sloop = null
 
             // Start the new backend
-            ensureBackendInitialized().thenAcceptAsync { catchUpWithBackend(it) }
+            ensureBackendInitialized().thenAcceptAsync({ catchUpWithBackend(it) }, resultExecutor)
         }
     }
 
@@ -952,8 +994,26 @@ class BackendService : Disposable {
     }
 
     companion object {
+        @VisibleForTesting
+        internal const val LOG_LEVEL_PROPERTY = "sonarlint.backend.log.level"
+        private const val RESULT_THREADS = 4
+
         fun projectId(project: Project) = project.projectFilePath ?: "DEFAULT_PROJECT"
 
+        /**
+         * The backend serializes every log at or above this level over JSON-RPC, so debug logs are only requested when they
+         * can be displayed, i.e. when the verbose output is enabled in one of [openProjects]. The level can be forced with
+         * the `sonarlint.backend.log.level` system property.
+         */
+        @VisibleForTesting
+        internal fun computeBackendLogLevel(openProjects: Collection<Project>): LogLevel {
+            System.getProperty(LOG_LEVEL_PROPERTY)?.let { level ->
+                LogLevel.values().firstOrNull { it.name.equals(level.trim(), ignoreCase = true) }?.let { return it }
+            }
+            val isVerboseEnabled = openProjects.any { !it.isDisposed && getSettingsFor(it).isVerboseEnabled }
+            return if (isVerboseEnabled) LogLevel.DEBUG else LogLevel.INFO
+        }
+
         fun moduleId(module: Module): String {
             val moduleName = getSettingsFor(module.project).moduleMapping[module.name] ?: module.name
             return "${projectId(module.project)}_${moduleName}"
@@ -993,55 +1053,77 @@ class BackendService : Disposable {
     fun refreshTaintVulnerabilities(project: Project) {
         val projectId = projectId(project)
         requestFromBackend { it.taintVulnerabilityTrackingService.listAll(ListAllParams(projectId, true)) }
-            .thenApplyAsync { response ->
+            .thenAcceptAsync({ response ->
                 val localTaintVulnerabilities = computeReadActionSafely(project) {
                     val taintVulnerabilityMatcher = TaintVulnerabilityMatcher(project)
                     response.taintVulnerabilities.map { taintVulnerabilityMatcher.match(it) }
-                } ?: return@thenApplyAsync
+                } ?: return@thenAcceptAsync
                 getService(project, TaintVulnerabilitiesCache::class.java).taintVulnerabilities = localTaintVulnerabilities
                 runOnUiThread(project) {
                     getService(project, SonarLintToolWindow::class.java).refreshViews()
                 }
-            }
+            }, resultExecutor)
     }
 
-    fun getExcludedFiles(module: Module, files: Collection<VirtualFile>): List<VirtualFile> {
-        val filesByUri = files.associateBy { toURI(it) }
+    /**
+     * Computes asynchronously which of the given files are excluded from analysis. Project and global exclusions are known
+     * locally, only the remaining files need the backend (e.g. for server exclusions), whose answers are cached for a short time.
+     */
+    fun getExcludedFiles(module: Module, files: Collection<VirtualFile>): CompletableFuture<List<VirtualFile>> {
+        val project = module.project
+        val (locallyExcludedFiles, otherFiles) = files.partition { getService(project, LocalFileExclusions::class.java).isExcluded(module, it) }
+        if (otherFiles.isEmpty()) {
+            return CompletableFuture.completedFuture(locallyExcludedFiles)
+        }
         return try {
-            val moduleId = moduleId(module)
-            requestFromBackend {
-                it.fileService.getFilesStatus(
-                    GetFilesStatusParams(
-                        mapOf(
-                            moduleId to filesByUri.keys.filterNotNull().toList()
-                        )
+            getService(project, FileExclusionStatusCache::class.java)
+                .getExcludedFiles(moduleId(module), otherFiles) { getExcludedFilesFromBackend(module, it) }
+                .thenApply { locallyExcludedFiles + it }
+                .exceptionally { e ->
+                    handleExcludedFilesError(module, e)
+                    locallyExcludedFiles
+                }
+        } catch (e: Exception) {
+            handleExcludedFilesError(module, e)
+            CompletableFuture.completedFuture(locallyExcludedFiles)
+        }
+    }
+
+    private fun getExcludedFilesFromBackend(module: Module, files: Collection<VirtualFile>): CompletableFuture<Set<VirtualFile>> {
+        val filesByUri = files.associateBy { toURI(it) }
+        val moduleId = moduleId(module)
+        return requestFromBackend {
+            it.fileService.getFilesStatus(
+                GetFilesStatusParams(
+                    mapOf(
+                        moduleId to filesByUri.keys.filterNotNull().toList()
                     )
                 )
-            }
-                .thenApplyAsync { response -> response.fileStatuses.filterValues { it.isExcluded }.keys.mapNotNull { filesByUri[it] } }
-                .join()
-        } catch (_: CancellationException) {
+            )
+        }
+            .thenApplyAsync({ response -> response.fileStatuses.filterValues { it.isExcluded }.keys.mapNotNull { filesByUri[it] }.toSet() }, resultExecutor)
+    }
+
+    private fun handleExcludedFilesError(module: Module, error: Throwable) {
+        val cause = if (error is CompletionException) error.cause ?: error else error
+        if (cause is CancellationException) {
             SonarLintConsole.get(module.project).debug("The request to retrieve file exclusions has been canceled")
-            emptyList()
-        } catch (e: Exception) {
-            if (!module.isDisposed) {
-                SonarLintConsole.get(module.project).error("Error when retrieving excluded files", e)
-            }
-            emptyList()
+        } else if (!module.isDisposed) {
+            SonarLintConsole.get(module.project).error("Error when retrieving excluded files", cause)
         }
     }
 
     fun getAutoDetectedNodeJs(): CompletableFuture<NodeJsSettings?> {
-        return requestFromBackend { it.analysisService.autoDetectedNodeJs }.thenApplyAsync { response ->
+        return requestFromBackend { it.analysisService.autoDetectedNodeJs }.thenApplyAsync({ response ->
             response.details?.let { NodeJsSettings(it.path, it.version) }
-        }
+        }, resultExecutor)
     }
 
     fun changeClientNodeJsPath(nodeJsPath: Path?): CompletableFuture<NodeJsSettings?> {
         return requestFromBackend { it.analysisService.didChangeClientNodeJsPath(DidChangeClientNodeJsPathParams(nodeJsPath)) }
-            .thenApplyAsync { response ->
+            .thenApplyAsync({ response ->
                 response.details?.let { NodeJsSettings(it.path, it.version) }
-            }
+            }, resultExecutor)
     }
 
     // Only include file content when modifying or opening a file
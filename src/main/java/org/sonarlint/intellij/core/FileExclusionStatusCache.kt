@@ -0,0 +1,157 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import org.sonarlint.intellij.config.global.SonarLintGlobalSettings
+import org.sonarlint.intellij.messages.GlobalConfigurationListener
+import org.sonarlint.intellij.messages.PROJECT_BINDING_TOPIC
+import org.sonarlint.intellij.messages.ProjectBindingListener
+import org.sonarlint.intellij.messages.ProjectConfigurationListener
+
+/**
+ * Caches the exclusion status of files as answered by the backend, for [TTL_MS] and [MAX_ENTRIES] files at most.
+ *
+ * Concurrent requests for the same files are coalesced: a file whose status is already being fetched is not requested
+ * again, the caller waits for the pending answer. The cache is cleared when the exclusions or the binding change, as
+ * both affect the answer of the backend.
+ */
+@Service(Service.Level.PROJECT)
+class FileExclusionStatusCache(project: Project) : Disposable {
+
+    private val lock = Any()
+    // Least recently used first, so that a burst of distinct files within the TTL cannot grow it without bound
+    private val statuses = object : LinkedHashMap<StatusKey, CachedStatus>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<StatusKey, CachedStatus>) = size > MAX_ENTRIES
+    }
+    private val pendingStatuses = HashMap<StatusKey, CompletableFuture<Boolean>>()
+    private var generation = 0L
+
+    init {
+        project.messageBus.connect(this).apply {
+            subscribe(PROJECT_BINDING_TOPIC, ProjectBindingListener { invalidate() })
+            subscribe(ProjectConfigurationListener.TOPIC, ProjectConfigurationListener { invalidate() })
+        }
+        ApplicationManager.getApplication().messageBus.connect(this)
+            .subscribe(GlobalConfigurationListener.TOPIC, object : GlobalConfigurationListener.Adapter() {
+                override fun applied(previousSettings: SonarLintGlobalSettings, newSettings: SonarLintGlobalSettings) {
+                    invalidate()
+                }
+            })
+    }
+
+    /**
+     * @param fetch requests the status of the given files from the backend, and returns the excluded ones
+     * @return the excluded files among [files]
+     */
+    fun getExcludedFiles(
+        moduleId: String,
+        files: Collection<VirtualFile>,
+        fetch: (List<VirtualFile>) -> CompletableFuture<Set<VirtualFile>>,
+    ): CompletableFuture<List<VirtualFile>> {
+        val statusByFile = LinkedHashMap<VirtualFile, CompletableFuture<Boolean>>()
+        val filesToFetch = mutableListOf<VirtualFile>()
+        val fetchGeneration: Long
+        synchronized(lock) {
+            fetchGeneration = generation
+            val now = System.nanoTime()
+            files.forEach { file ->
+                val key = StatusKey(moduleId, file)
+                val cachedStatus = statuses[key]
+                statusByFile[file] = when {
+                    cachedStatus != null && !cachedStatus.isExpired(now) -> CompletableFuture.completedFuture(cachedStatus.isExcluded)
+                    else -> pendingStatuses[key] ?: CompletableFuture<Boolean>().also {
+                        pendingStatuses[key] = it
+                        filesToFetch.add(file)
+                    }
+                }
+            }
+        }
+        if (filesToFetch.isNotEmpty()) {
+            fetchStatuses(moduleId, filesToFetch, fetchGeneration, statusByFile, fetch)
+        }
+        return CompletableFuture.allOf(*statusByFile.values.toTypedArray())
+            .thenApply { statusByFile.filterValues { it.join() }.keys.toList() }
+    }
+
+    private fun fetchStatuses(
+        moduleId: String,
+        filesToFetch: List<VirtualFile>,
+        fetchGeneration: Long,
+        statusByFile: Map<VirtualFile, CompletableFuture<Boolean>>,
+        fetch: (List<VirtualFile>) -> CompletableFuture<Set<VirtualFile>>,
+    ) {
+        val response = try {
+            fetch(filesToFetch)
+        } catch (e: Exception) {
+            CompletableFuture.failedFuture(e)
+        }
+        response.whenComplete { excludedFiles, error ->
+            synchronized(lock) {
+                val now = System.nanoTime()
+                filesToFetch.forEach { file ->
+                    val key = StatusKey(moduleId, file)
+                    pendingStatuses.remove(key, statusByFile[file])
+                    // An answer computed before an invalidation might be outdated, it is only given to the callers waiting for it
+                    if (error == null && generation == fetchGeneration) {
+                        statuses[key] = CachedStatus(file in excludedFiles, now)
+                    }
+                }
+            }
+            filesToFetch.forEach { file ->
+                val status = statusByFile.getValue(file)
+                if (error == null) {
+                    status.complete(file in excludedFiles)
+                } else {
+                    status.completeExceptionally(error)
+                }
+            }
+        }
+    }
+
+    fun invalidate() {
+        synchronized(lock) {
+            generation++
+            statuses.clear()
+            pendingStatuses.clear()
+        }
+    }
+
+    override fun dispose() {
+        // Only a parent for the listeners of the exclusion and binding changes
+    }
+
+    private data class StatusKey(val moduleId: String, val file: VirtualFile)
+
+    private class CachedStatus(val isExcluded: Boolean, private val timestampNanos: Long) {
+        fun isExpired(now: Long) = now - timestampNanos > TimeUnit.MILLISECONDS.toNanos(TTL_MS)
+    }
+
+    companion object {
+        private const val TTL_MS = 10 * 1000L
+        private const val MAX_ENTRIES = 1000
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core.server
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.components.Service
+import com.intellij.util.net.ssl.CertificateListener
+import com.intellij.util.net.ssl.CertificateManager
+import java.security.MessageDigest
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.util.HexFormat
+
+/**
+ * Certificate chains recently verified as trusted, so that the backend requests to the same server do not parse and
+ * verify the same chain again and again (e.g. behind a TLS-intercepting proxy, for every HTTPS request).
+ *
+ * Only successful verifications are remembered: a rejected chain is always verified again, so that the user still gets
+ * a chance to accept it. An entry expires when the earliest-expiring certificate of the chain expires, and at the latest
+ * after [maxAge], as changes to the system trust store cannot be observed. Changes to the IDE trust store [clear] it.
+ */
+@Service(Service.Level.APP)
+class TrustedCertificateChains internal constructor(
+    private val maxSize: Int,
+    private val maxAge: Duration,
+    private val clock: () -> Long,
+) : Disposable {
+
+    private val certificateListener = object : CertificateListener {
+        override fun certificateAdded(certificate: X509Certificate) = clear()
+        override fun certificateRemoved(certificate: X509Certificate) = clear()
+    }
+
+    constructor() : this(64, Duration.ofMinutes(30), System::currentTimeMillis) {
+        // Accepting or removing a certificate in the IDE settings may change the verdict for any chain
+        CertificateManager.getInstance().customTrustManager.addListener(certificateListener)
+    }
+
+    private val expiryByChain = object : LinkedHashMap<String, Long>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Long>) = size > maxSize
+    }
+
+    fun isTrusted(pems: List<String>, authType: String): Boolean {
+        val key = fingerprint(pems, authType)
+        synchronized(expiryByChain) {
+            val expiry = expiryByChain[key] ?: return false
+            if (clock() < expiry) {
+                return true
+            }
+            expiryByChain.remove(key)
+            return false
+        }
+    }
+
+    fun markTrusted(pems: List<String>, authType: String, notAfterMillis: Long) {
+        val expiry = minOf(notAfterMillis, clock() + maxAge.toMillis())
+        val key = fingerprint(pems, authType)
+        synchronized(expiryByChain) {
+            expiryByChain[key] = expiry
+        }
+    }
+
+    fun clear() {
+        synchronized(expiryByChain) {
+            expiryByChain.clear()
+        }
+    }
+
+    private fun fingerprint(pems: List<String>, authType: String): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        pems.forEach {
+            digest.update(it.toByteArray())
+            // Separate the certificates, so that different splits of the same bytes do not collide
+            digest.update(0.toByte())
+        }
+        digest.update(authType.toByteArray())
+        return HexFormat.of().formatHex(digest.digest())
+    }
+
+    override fun dispose() {
+        CertificateManager.getInstance().customTrustManager.removeListener(certificateListener)
+    }
+
+}
@@ -19,6 +19,7 @@
  */
 package org.sonarlint.intellij.editor
 
+import com.intellij.codeInsight.daemon.impl.DaemonCodeAnalyzerEx
 import com.intellij.codeInsight.daemon.impl.HighlightInfo
 import com.intellij.codeInsight.daemon.impl.UpdateHighlightersUtil
 import com.intellij.codeInsight.intention.IntentionAction
@@ -26,16 +27,28 @@ import com.intellij.openapi.Disposable
 import com.intellij.openapi.application.ModalityState
 import com.intellij.openapi.components.Service
 import com.intellij.openapi.editor.Document
+import com.intellij.openapi.editor.Editor
+import com.intellij.openapi.editor.EditorFactory
+import com.intellij.openapi.editor.event.EditorFactoryEvent
+import com.intellij.openapi.editor.event.EditorFactoryListener
+import com.intellij.openapi.editor.event.VisibleAreaEvent
 import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.fileEditor.FileEditorManager
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent
+import com.intellij.openapi.fileEditor.FileEditorManagerListener
 import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.util.Key
 import com.intellij.openapi.util.TextRange
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.serviceContainer.NonInjectable
+import java.awt.Point
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.ScheduledThreadPoolExecutor
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 import org.jetbrains.annotations.VisibleForTesting
 import org.sonarlint.intellij.actions.MarkAsResolvedAction
 import org.sonarlint.intellij.actions.ReviewSecurityHotspotAction
@@ -52,6 +65,7 @@ import org.sonarlint.intellij.finding.issue.vulnerabilities.LocalTaintVulnerabil
 import org.sonarlint.intellij.ui.UiUtils.Companion.runOnUiThread
 import org.sonarlint.intellij.ui.currentfile.CurrentFileDisplayedFindingsStore
 import org.sonarsource.sonarlint.core.client.utils.ImpactSeverity
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.hotspot.HotspotStatus
 import org.sonarsource.sonarlint.core.rpc.protocol.common.IssueSeverity
 
 /**
@@ -80,15 +94,53 @@ class DirectHighlighter @NonInjectable internal constructor(
     private var nextGeneration = 0L
     private var scheduledTask: ScheduledFuture<*>? = null
     private var disposed = false
+    private val deferredFiles = mutableSetOf<VirtualFile>()
+
+    @Volatile
+    private var editorSelection: EditorSelection? = null
+    private val listenersDisposable = Disposer.newDisposable()
+    private val visibleRangeByEditor = ConcurrentHashMap<Editor, TextRange>()
+    private val filesWithFileLevelHighlights = ConcurrentHashMap.newKeySet<VirtualFile>()
+    private val intentionActionsByFile = ConcurrentHashMap<VirtualFile, MutableMap<LiveFinding, CachedIntentionActions>>()
+
+    init {
+        val editorFactory = EditorFactory.getInstance()
+        editorFactory.eventMulticaster.addVisibleAreaListener({ onVisibleAreaChanged(it) }, listenersDisposable)
+        editorFactory.addEditorFactoryListener(object : EditorFactoryListener {
+            override fun editorReleased(event: EditorFactoryEvent) {
+                visibleRangeByEditor.remove(event.editor)
+            }
+        }, listenersDisposable)
+        project.messageBus.connect(listenersDisposable).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, object : FileEditorManagerListener {
+            override fun selectionChanged(event: FileEditorManagerEvent) {
+                onSelectionChanged(event)
+            }
+
+            override fun fileClosed(source: FileEditorManager, file: VirtualFile) {
+                synchronized(queueLock) {
+                    deferredFiles.remove(file)
+                    if (file !in pendingFiles) {
+                        latestGenerationByFile.remove(file)
+                    }
+                }
+                intentionActionsByFile.remove(file)
+            }
+        })
+    }
 
     /**
      * Recomputes and writes the SonarQube highlights for the given [files]. Called (debounced) from
      * [CodeAnalyzerRestarter] whenever the displayed findings change.
      *
-     * Requests are coalesced and prepared serially on a project-owned worker. Only the final markup update is posted to
+     * Requests are coalesced and prepared serially on a project-owned worker. Only the markup updates are posted to
      * the EDT. Each request gets a generation so an obsolete prepared result cannot overwrite a newer one. Keeping
      * [UpdateHighlightersUtil.setHighlightersToEditor] off the read-action path avoids "slow operations on EDT"
      * assertions in integration tests.
+     *
+     * Only the ranges whose highlights changed are rewritten, in chunks: the ones visible in an editor are applied first,
+     * the rest are built and applied incrementally afterward (see [HighlightChunker]). Files are handled by visibility:
+     * the selected editor, then the other visible split editors. Files only open in background tabs are deferred until
+     * one of their editors gets selected.
      */
     fun updateHighlights(files: Collection<VirtualFile>) {
         if (files.isEmpty() || project.isDisposed) {
@@ -119,28 +171,74 @@ class DirectHighlighter @NonInjectable internal constructor(
             return
         }
 
-        val preparedHighlights = requests.mapNotNull { request ->
-            if (!isLatest(request)) {
-                null
-            } else {
-                val prepared = prepareHighlights(request)
-                if (prepared == null) {
-                    complete(request)
-                    null
-                } else if (!isLatest(request)) {
-                    // A newer request may have arrived while the read action was running. The EDT guard below remains
-                    // authoritative, but avoiding the post here saves unnecessary work in the common case.
+        val requestsByVisibility = requests.groupBy { visibilityOf(it.file) }
+        requestsByVisibility[EditorVisibility.BACKGROUND]?.let { defer(it) }
+
+        val preparedHighlights = listOf(EditorVisibility.SELECTED, EditorVisibility.VISIBLE)
+            .flatMap { requestsByVisibility[it].orEmpty() }
+            .mapNotNull { request ->
+                if (!isLatest(request)) {
                     null
                 } else {
-                    prepared
+                    val prepared = prepareHighlights(request)
+                    if (prepared == null || prepared.chunks.isEmpty()) {
+                        complete(request)
+                        null
+                    } else if (!isLatest(request)) {
+                        // A newer request may have arrived while the read action was running. The EDT guard below remains
+                        // authoritative, but avoiding the post here saves unnecessary work in the common case.
+                        null
+                    } else {
+                        // What the user is looking at is written as soon as it is ready, before preparing the next file
+                        postChunks(prepared.chunks.filter { it.isVisible }.map { PendingChunk(prepared, it) })
+                        prepared
+                    }
                 }
             }
-        }
         if (preparedHighlights.isEmpty() || project.isDisposed) {
             return
         }
+
+        // Off-screen ranges follow one chunk per EDT event, so the EDT stays responsive while a large file is filled in
+        preparedHighlights.forEach { prepared ->
+            prepared.chunks.filterNot { it.isVisible }.forEach { postChunks(listOf(PendingChunk(prepared, it))) }
+        }
+    }
+
+    private fun visibilityOf(file: VirtualFile): EditorVisibility {
+        // Until the first selection event, nothing is known about the editors: do not defer anything
+        val selection = editorSelection ?: return EditorVisibility.VISIBLE
+        return when (file) {
+            selection.selectedFile -> EditorVisibility.SELECTED
+            in selection.visibleFiles -> EditorVisibility.VISIBLE
+            else -> EditorVisibility.BACKGROUND
+        }
+    }
+
+    private fun defer(requests: List<HighlightRequest>) {
+        synchronized(queueLock) {
+            requests.filter { latestGenerationByFile[it.file] == it.generation }.forEach { deferredFiles.add(it.file) }
+        }
+    }
+
+    /** Refreshes the deferred files that just became visible. Called on the EDT. */
+    private fun onSelectionChanged(event: FileEditorManagerEvent) {
+        val selection = EditorSelection(event.newFile, event.manager.selectedFiles.toSet())
+        editorSelection = selection
+        val nowVisible = synchronized(queueLock) {
+            deferredFiles.filter { it == selection.selectedFile || it in selection.visibleFiles }
+                .also { deferredFiles.removeAll(it.toSet()) }
+        }
+        updateHighlights(nowVisible)
+    }
+
+    private fun postChunks(chunks: List<PendingChunk>) {
+        val builtChunks = chunks.filter { isLatest(it.prepared.request) }.map { it to buildHighlights(it.chunk) }
+        if (builtChunks.isEmpty() || project.isDisposed) {
+            return
+        }
         runOnUiThread(project, ModalityState.nonModal()) {
-            preparedHighlights.forEach { applyPreparedHighlightsIfCurrent(it) }
+            builtChunks.forEach { (pending, highlights) -> applyChunkIfCurrent(pending, highlights) }
         }
     }
 
@@ -151,10 +249,15 @@ class DirectHighlighter @NonInjectable internal constructor(
             latestGenerationByFile[file] = generation
             HighlightRequest(file, generation)
         }
-        prepareHighlights(request)?.let { applyPreparedHighlightsIfCurrent(it) }
+        val prepared = prepareHighlights(request)
+        if (prepared == null || prepared.chunks.isEmpty()) {
+            complete(request)
+            return
+        }
+        prepared.chunks.forEach { chunk -> applyChunkIfCurrent(PendingChunk(prepared, chunk), buildHighlights(chunk)) }
     }
 
-    /** Collects highlight descriptors under read lock; must not write editor markup here. */
+    /** Resolves the highlight ranges and compares them with the current markup under read lock; must not write editor markup here. */
     private fun prepareHighlights(request: HighlightRequest): PreparedHighlights? {
         return computeReadActionSafely(request.file, project) {
             val file = request.file
@@ -163,13 +266,37 @@ class DirectHighlighter @NonInjectable internal constructor(
             }
             val document = FileDocumentManager.getInstance().getDocument(file) ?: return@computeReadActionSafely null
             val fileRange = TextRange(0, document.textLength)
-            val highlights = collectHighlightPlans(file).mapNotNull { it.toHighlightInfo(fileRange) }
-            PreparedHighlights(request, document, document.modificationStamp, highlights)
+            val plans = collectHighlightPlans(file).mapNotNull { plan -> plan.resolveRange(fileRange)?.let { ResolvedHighlightPlan(plan, it) } }
+            val chunks = if (plans.any { it.plan.isFileLevel } || file in filesWithFileLevelHighlights) {
+                // File-level annotations are only cleared when the whole file is rewritten
+                listOf(HighlightChunk(fileRange, plans, true))
+            } else {
+                HighlightChunker.split(
+                    plans, collectAppliedHighlights(document), { it.range }, { it.plan.key },
+                    visibleRangeOf(document), MAX_HIGHLIGHTS_PER_CHUNK
+                )
+            }
+            PreparedHighlights(request, document, document.modificationStamp, chunks, AtomicInteger(chunks.size))
         }
     }
 
-    /** Writes current pre-computed highlights into the editor; must run on the EDT, outside any read action. */
-    private fun applyPreparedHighlightsIfCurrent(prepared: PreparedHighlights) {
+    private fun collectAppliedHighlights(document: Document): List<AppliedHighlight> {
+        val applied = mutableListOf<AppliedHighlight>()
+        DaemonCodeAnalyzerEx.processHighlights(document, project, null, 0, document.textLength) { info ->
+            if (info.group == SONARLINT_GROUP) {
+                applied.add(AppliedHighlight(TextRange(info.startOffset, info.endOffset), info.highlighter?.getUserData(HIGHLIGHT_KEY)))
+            }
+            true
+        }
+        return applied
+    }
+
+    private fun buildHighlights(chunk: HighlightChunk<ResolvedHighlightPlan>): List<Pair<HighlightInfo, HighlightKey>> =
+        chunk.items.mapNotNull { item -> item.plan.toHighlightInfo(item.range)?.let { it to item.plan.key } }
+
+    /** Writes a pre-computed chunk of highlights into the editor; must run on the EDT, outside any read action. */
+    private fun applyChunkIfCurrent(pending: PendingChunk, highlights: List<Pair<HighlightInfo, HighlightKey>>) {
+        val prepared = pending.prepared
         val request = prepared.request
         if (project.isDisposed || !isLatest(request)) {
             return
@@ -194,13 +321,21 @@ class DirectHighlighter @NonInjectable internal constructor(
         }
         // The markup write must not happen while holding queueLock: setHighlightersToEditor runs on the EDT and
         // holding the lock across it would block background threads (e.g. the scheduler) on the EDT for its duration.
+        val chunk = pending.chunk
         UpdateHighlightersUtil.setHighlightersToEditor(
-            project, document, 0, document.textLength, prepared.highlights, null, SONARLINT_GROUP
+            project, document, chunk.range.startOffset, chunk.range.endOffset, highlights.map { it.first }, null, SONARLINT_GROUP
         )
-        synchronized(queueLock) {
-            // A request arriving during the write is ordered after this application and will refresh it again.
-            if (!disposed && latestGenerationByFile[file] == request.generation && file !in pendingFiles) {
-                latestGenerationByFile.remove(file)
+        // Tag the highlighters so the next refresh can tell which ranges are already up to date
+        highlights.forEach { (info, key) -> info.highlighter?.putUserData(HIGHLIGHT_KEY, key) }
+        if (chunk.range.startOffset == 0 && chunk.range.endOffset == document.textLength) {
+            if (chunk.items.any { it.plan.isFileLevel }) filesWithFileLevelHighlights.add(file) else filesWithFileLevelHighlights.remove(file)
+        }
+        if (prepared.remainingChunks.decrementAndGet() == 0) {
+            synchronized(queueLock) {
+                // A request arriving during the write is ordered after this application and will refresh it again.
+                if (!disposed && latestGenerationByFile[file] == request.generation && file !in pendingFiles) {
+                    latestGenerationByFile.remove(file)
+                }
             }
         }
     }
@@ -217,26 +352,87 @@ class DirectHighlighter @NonInjectable internal constructor(
         }
     }
 
+    /** Records the lines shown by an editor of this project, used to write its highlights first. Called on the EDT. */
+    private fun onVisibleAreaChanged(event: VisibleAreaEvent) {
+        val editor = event.editor
+        if (editor.project != project || editor.isDisposed) {
+            return
+        }
+        val area = event.newRectangle
+        val document = editor.document
+        if (area.height <= 0 || document.lineCount == 0) {
+            visibleRangeByEditor.remove(editor)
+            return
+        }
+        val lastLine = document.lineCount - 1
+        val startLine = editor.xyToLogicalPosition(Point(0, area.y)).line.coerceIn(0, lastLine)
+        val endLine = editor.xyToLogicalPosition(Point(0, area.y + area.height)).line.coerceIn(startLine, lastLine)
+        visibleRangeByEditor[editor] = TextRange(document.getLineStartOffset(startLine), document.getLineEndOffset(endLine))
+    }
+
+    /** Smallest range covering what the editors of [document] show, or null if it is not displayed yet. */
+    private fun visibleRangeOf(document: Document): TextRange? {
+        val ranges = visibleRangeByEditor.entries.filter { it.key.document == document }.map { it.value }
+        if (ranges.isEmpty()) {
+            return null
+        }
+        // Offsets were recorded for an earlier revision and are only a hint; keep them inside the document
+        val startOffset = ranges.minOf { it.startOffset }.coerceAtMost(document.textLength)
+        val endOffset = ranges.maxOf { it.endOffset }.coerceIn(startOffset, document.textLength)
+        return TextRange(startOffset, endOffset)
+    }
+
     override fun dispose() {
         synchronized(queueLock) {
             disposed = true
             scheduledTask?.cancel(false)
             scheduledTask = null
             pendingFiles.clear()
+            deferredFiles.clear()
             latestGenerationByFile.clear()
         }
         scheduler.shutdownNow()
+        Disposer.dispose(listenersDisposable)
+        visibleRangeByEditor.clear()
+        filesWithFileLevelHighlights.clear()
+        intentionActionsByFile.clear()
     }
 
     private data class HighlightRequest(val file: VirtualFile, val generation: Long)
 
-    private data class PreparedHighlights(
+    private enum class EditorVisibility { SELECTED, VISIBLE, BACKGROUND }
+
+    /** Files shown in the focused editor and in the other splits, as of the last selection change. */
+    private data class EditorSelection(val selectedFile: VirtualFile?, val visibleFiles: Set<VirtualFile>)
+
+    private class PreparedHighlights(
         val request: HighlightRequest,
         val document: Document,
         val documentModificationStamp: Long,
-        val highlights: List<HighlightInfo>,
+        val chunks: List<HighlightChunk<ResolvedHighlightPlan>>,
+        val remainingChunks: AtomicInteger,
+    )
+
+    private class PendingChunk(val prepared: PreparedHighlights, val chunk: HighlightChunk<ResolvedHighlightPlan>)
+
+    private class ResolvedHighlightPlan(val plan: HighlightPlan, val range: TextRange)
+
+    /**
+     * Identifies what a written highlight was built from. Findings have identity equality, so a new analysis result
+     * never matches a highlight carrying intention actions bound to the previous finding instance.
+     */
+    private data class HighlightKey(
+        val finding: Any,
+        val isFocusOnNewCode: Boolean,
+        val isBindingEnabled: Boolean,
+        val state: Any?,
     )
 
+    /** What the intention actions of a finding depend on, besides the finding itself. */
+    private data class IntentionActionsState(val isBindingEnabled: Boolean, val hotspotStatus: HotspotStatus?, val isAiCodeFixable: Boolean)
+
+    private class CachedIntentionActions(val state: IntentionActionsState, val actions: List<IntentionAction>)
+
     /**
      * Builds the list of highlights to render for [file] from the findings currently displayed in the tool window.
      * Reads the shared snapshot rather than the raw analysis so that editor highlights always match what the user
@@ -247,22 +443,20 @@ class DirectHighlighter @NonInjectable internal constructor(
         val isFocusOnNewCode = getService(CleanAsYouCodeService::class.java).shouldFocusOnNewCode()
         val isBindingEnabled = getSettingsFor(project).isBindingEnabled
         val plans = mutableListOf<HighlightPlan>()
+        val intentionActions = intentionActionsByFile.computeIfAbsent(file) { ConcurrentHashMap() }
 
-        (findings.issues.asSequence() + findings.hotspots.asSequence())
+        val displayedFindings = (findings.issues.asSequence() + findings.hotspots.asSequence())
             .filter { !it.isResolved() }
-            .forEach { finding ->
-                plans.add(
-                    FindingHighlightPlan(
-                        finding,
-                        isFocusOnNewCode,
-                        intentionActionsFor(finding, isBindingEnabled),
-                    )
-                )
-            }
+            .toList()
+        // Findings are replaced by new instances after each analysis, drop the actions of the previous ones
+        intentionActions.keys.retainAll(displayedFindings.toSet())
+        displayedFindings.forEach { finding ->
+            plans.add(FindingHighlightPlan(finding, isFocusOnNewCode, isBindingEnabled, intentionActions))
+        }
 
         findings.taints
             .filter { !it.isResolved() && file == it.file() }
-            .forEach { taint -> plans.add(TaintHighlightPlan(taint, isFocusOnNewCode)) }
+            .forEach { taint -> plans.add(TaintHighlightPlan(taint, isFocusOnNewCode, isBindingEnabled)) }
 
         return plans
     }
@@ -286,7 +480,21 @@ class DirectHighlighter @NonInjectable internal constructor(
         return builder
     }
 
-    private fun intentionActionsFor(finding: LiveFinding, isBindingEnabled: Boolean): List<IntentionAction> {
+    /**
+     * Intention actions are rebuilt only when the finding or what they depend on changes, not on each highlight refresh:
+     * they are reused by all the highlights written for the same finding instance.
+     */
+    private fun intentionActionsFor(
+        finding: LiveFinding,
+        isBindingEnabled: Boolean,
+        cache: MutableMap<LiveFinding, CachedIntentionActions>,
+    ): List<IntentionAction> {
+        val state = IntentionActionsState(isBindingEnabled, (finding as? LiveSecurityHotspot)?.status, finding.isAiCodeFixable())
+        cache[finding]?.takeIf { it.state == state }?.let { return it.actions }
+        return createIntentionActions(finding, isBindingEnabled).also { cache[finding] = CachedIntentionActions(state, it) }
+    }
+
+    private fun createIntentionActions(finding: LiveFinding, isBindingEnabled: Boolean): List<IntentionAction> {
         val actions = mutableListOf<IntentionAction>()
         actions.add(ShowRuleDescriptionIntentionAction(finding))
         if (!isBindingEnabled) {
@@ -309,24 +517,35 @@ class DirectHighlighter @NonInjectable internal constructor(
     }
 
     private sealed interface HighlightPlan {
-        fun toHighlightInfo(fileRange: TextRange): HighlightInfo?
+        val key: HighlightKey
+        val isFileLevel: Boolean
+
+        /** Returns the current range of the finding in the document, or null if it cannot be displayed; needs read lock. */
+        fun resolveRange(fileRange: TextRange): TextRange?
+
+        fun toHighlightInfo(textRange: TextRange): HighlightInfo?
     }
 
     private inner class FindingHighlightPlan(
         private val finding: LiveFinding,
         private val isFocusOnNewCode: Boolean,
-        private val intentionActions: List<IntentionAction>,
+        private val isBindingEnabled: Boolean,
+        private val intentionActions: MutableMap<LiveFinding, CachedIntentionActions>,
     ) : HighlightPlan {
-        override fun toHighlightInfo(fileRange: TextRange): HighlightInfo? {
+        override val key = HighlightKey(finding, isFocusOnNewCode, isBindingEnabled, (finding as? LiveSecurityHotspot)?.status)
+        override val isFileLevel = finding.range == null
+
+        override fun resolveRange(fileRange: TextRange): TextRange? {
             val textRange = finding.validTextRange ?: return null
-            if (!fileRange.contains(textRange)) {
-                return null
-            }
+            return if (fileRange.contains(textRange)) textRange else null
+        }
+
+        override fun toHighlightInfo(textRange: TextRange): HighlightInfo? {
             val builder = newBuilder(
                 finding.getHighestImpact(), finding.userSeverity, finding.isOnNewCode(), isFocusOnNewCode,
-                finding.message, finding.range == null, textRange,
+                finding.message, isFileLevel, textRange,
             )
-            intentionActions.forEach { builder.registerFix(it, null, null, null, null) }
+            intentionActionsFor(finding, isBindingEnabled, intentionActions).forEach { builder.registerFix(it, null, null, null, null) }
             return builder.create()
         }
     }
@@ -334,12 +553,17 @@ class DirectHighlighter @NonInjectable internal constructor(
     private inner class TaintHighlightPlan(
         private val taint: LocalTaintVulnerability,
         private val isFocusOnNewCode: Boolean,
+        isBindingEnabled: Boolean,
     ) : HighlightPlan {
-        override fun toHighlightInfo(fileRange: TextRange): HighlightInfo? {
+        override val key = HighlightKey(taint, isFocusOnNewCode, isBindingEnabled, null)
+        override val isFileLevel = false
+
+        override fun resolveRange(fileRange: TextRange): TextRange? {
             val textRange = taint.getValidTextRange() ?: return null
-            if (!taint.isValid() || !fileRange.contains(textRange)) {
-                return null
-            }
+            return if (taint.isValid() && fileRange.contains(textRange)) textRange else null
+        }
+
+        override fun toHighlightInfo(textRange: TextRange): HighlightInfo? {
             val builder = newBuilder(
                 taint.getHighestImpact(), taint.severity(), taint.isOnNewCode(), isFocusOnNewCode,
                 taint.message(), false, textRange,
@@ -352,6 +576,9 @@ class DirectHighlighter @NonInjectable internal constructor(
 
     companion object {
         private const val DEFAULT_DEBOUNCE_DELAY_MS = 100L
+        private const val MAX_HIGHLIGHTS_PER_CHUNK = 200
+
+        private val HIGHLIGHT_KEY = Key.create<HighlightKey>("SonarLint.DirectHighlighter.HighlightKey")
 
         private fun newScheduler(project: Project): ScheduledExecutorService =
             ScheduledThreadPoolExecutor(1) { runnable ->
@@ -31,9 +31,6 @@ import com.intellij.openapi.editor.Editor
 import com.intellij.openapi.editor.EditorFactory
 import com.intellij.openapi.editor.RangeMarker
 import com.intellij.openapi.editor.markup.EffectType
-import com.intellij.openapi.editor.markup.HighlighterLayer
-import com.intellij.openapi.editor.markup.HighlighterTargetArea
-import com.intellij.openapi.editor.markup.RangeHighlighter
 import com.intellij.openapi.editor.markup.TextAttributes
 import com.intellij.openapi.fileEditor.FileEditorManager
 import com.intellij.openapi.project.Project
@@ -46,14 +43,12 @@ import org.sonarlint.intellij.common.ui.ReadActionUtils.Companion.computeReadAct
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.config.SonarLintTextAttributes
 import org.sonarlint.intellij.finding.Flow
-import org.sonarlint.intellij.finding.Issue
 import org.sonarlint.intellij.finding.LiveFinding
 import org.sonarlint.intellij.finding.Location
 import org.sonarlint.intellij.finding.issue.LiveIssue
 import org.sonarlint.intellij.finding.issue.vulnerabilities.LocalTaintVulnerability
 import org.sonarlint.intellij.ui.UiUtils.Companion.runOnUiThread
 import org.sonarlint.intellij.ui.codefix.CodeFixGutterHandler
-import org.sonarlint.intellij.ui.codefix.CodeFixGutterIconRenderer
 import org.sonarlint.intellij.util.getDocument
 
 private const val HIGHLIGHT_GROUP_ID = 1001
@@ -194,19 +189,6 @@ class EditorDecorator(private val project: Project) : Disposable {
         return editor.document in currentHighlightedDoc
     }
 
-    private fun createGutterIcon(editor: Editor, startOffset: Int, issues: List<Issue>): RangeHighlighter {
-        val renderer = CodeFixGutterIconRenderer(editor, issues)
-        return editor.markupModel.addRangeHighlighter(
-            null,
-            startOffset,
-            startOffset,
-            HighlighterLayer.LAST,
-            HighlighterTargetArea.LINES_IN_RANGE
-        ).apply {
-            gutterIconRenderer = renderer
-        }
-    }
-
     // Taints comes from multiple files, unlike issues that are found for the current file opened
     // We should probably refresh the gutter icons when a new file is selected, as we can only add the icons on the current editor
     fun createGutterIconForTaints(taints: Collection<LocalTaintVulnerability>) {
@@ -221,24 +203,12 @@ class EditorDecorator(private val project: Project) : Disposable {
 
         fixableTaintsByFile.forEach { (file, taints) ->
             val document = file?.getDocument() ?: return@forEach
-            val fixableTaintsByLine = taints.groupBy {
-                val marker = it.rangeMarker() ?: return@forEach
-                document.getLineNumber(marker.startOffset)
-            }
+            val fixableTaintsByLine = taints
+                .filter { it.rangeMarker() != null }
+                .groupBy { document.getLineNumber(it.rangeMarker()!!.startOffset) }
 
             getEditors(document).forEach { editor ->
-                getService(project, CodeFixGutterHandler::class.java).cleanTaintIconsFromDisposedEditorsAndSelectedEditor(editor)
-                if (!editor.isDisposed) {
-                    val icons = fixableTaintsByLine.map { (_, fixableTaints) ->
-                        val startOffset = taints.first().rangeMarker()?.startOffset ?: return
-                        createGutterIcon(
-                            editor,
-                            startOffset,
-                            fixableTaints
-                        )
-                    }.toSet()
-                    getService(project, CodeFixGutterHandler::class.java).addTaintIcons(editor, icons)
-                }
+                getService(project, CodeFixGutterHandler::class.java).updateTaintIcons(editor, fixableTaintsByLine)
             }
         }
     }
@@ -246,21 +216,12 @@ class EditorDecorator(private val project: Project) : Disposable {
     fun createGutterIconForIssues(file: VirtualFile, issues: Collection<LiveIssue>) {
         val document = file.getDocument() ?: return
 
-        val fixableIssuesByLine = issues
-            .filter { it.isValid() && it.isAiCodeFixable() && it.range != null }
+        val fixableIssuesByLine = LiveFinding.filterValid(issues)
+            .filter { it.isAiCodeFixable() && it.range != null }
             .groupBy { document.getLineNumber(it.range!!.startOffset) }
 
         getEditors(document).forEach { editor ->
-            getService(project, CodeFixGutterHandler::class.java).cleanIssueIconsFromDisposedEditorsAndSelectedEditor(editor)
-            val icons = fixableIssuesByLine.map { (_, fixableIssues) ->
-                val startOffset = fixableIssues.first().range?.startOffset ?: return
-                createGutterIcon(
-                    editor,
-                    startOffset,
-                    fixableIssues
-                )
-            }.toSet()
-            getService(project, CodeFixGutterHandler::class.java).addIssueIcons(editor, icons)
+            getService(project, CodeFixGutterHandler::class.java).updateIssueIcons(editor, fixableIssuesByLine)
         }
     }
 
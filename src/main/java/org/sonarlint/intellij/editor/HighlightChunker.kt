@@ -0,0 +1,134 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.editor
+
+import com.intellij.openapi.util.TextRange
+
+/** A highlight currently present in the editor markup, with the key it was written with (if any). */
+internal data class AppliedHighlight(val range: TextRange, val key: Any?)
+
+/** A range of the document that can be rewritten on its own, together with the highlights it must contain. */
+internal class HighlightChunk<T>(val range: TextRange, val items: List<T>, val isVisible: Boolean)
+
+/**
+ * Splits the desired highlights of a file into chunks that can be written to the editor independently.
+ *
+ * [com.intellij.codeInsight.daemon.impl.UpdateHighlightersUtil.setHighlightersToEditor] replaces every highlighter of
+ * the group that is fully contained in the given range. A chunk range must therefore cover all the old and new
+ * highlights it touches and nothing that belongs to another chunk: overlapping (or touching) highlights form clusters
+ * that are never split, and a chunk is a run of adjacent clusters. Clusters whose desired highlights already match the
+ * applied ones are left out, so a refresh only rewrites the ranges that actually changed.
+ *
+ * Chunks intersecting the visible range come first, then the others by increasing distance to it.
+ */
+internal object HighlightChunker {
+
+    fun <T> split(
+        planned: List<T>,
+        applied: List<AppliedHighlight>,
+        rangeOf: (T) -> TextRange,
+        keyOf: (T) -> Any,
+        visibleRange: TextRange?,
+        maxHighlightsPerChunk: Int,
+    ): List<HighlightChunk<T>> {
+        val clusters = clusterize(planned, applied, rangeOf)
+        val chunks = mutableListOf<HighlightChunk<T>>()
+        var runClusters = mutableListOf<Cluster<T>>()
+        var runSize = 0
+        var runIsVisible = false
+
+        fun flush() {
+            if (runClusters.isNotEmpty()) {
+                val range = TextRange(runClusters.first().startOffset, runClusters.maxOf { it.endOffset })
+                chunks.add(HighlightChunk(range, runClusters.flatMap { it.planned }, runIsVisible))
+                runClusters = mutableListOf()
+                runSize = 0
+            }
+        }
+
+        clusters.forEach { cluster ->
+            if (!cluster.isChanged(rangeOf, keyOf)) {
+                // Unchanged highlights must not end up inside a chunk range, or they would be removed without being re-added
+                flush()
+                return@forEach
+            }
+            val isVisible = visibleRange != null && visibleRange.intersects(cluster.startOffset, cluster.endOffset)
+            if (runClusters.isNotEmpty() && (isVisible != runIsVisible || runSize + cluster.size > maxHighlightsPerChunk)) {
+                flush()
+            }
+            runClusters.add(cluster)
+            runSize += cluster.size
+            runIsVisible = isVisible
+        }
+        flush()
+
+        return chunks.sortedWith(compareBy({ !it.isVisible }, { distance(it.range, visibleRange) }))
+    }
+
+    private fun <T> clusterize(planned: List<T>, applied: List<AppliedHighlight>, rangeOf: (T) -> TextRange): List<Cluster<T>> {
+        val entries = planned.map { Entry<T>(rangeOf(it), it, null) } + applied.map { Entry<T>(it.range, null, it) }
+        val clusters = mutableListOf<Cluster<T>>()
+        var current: Cluster<T>? = null
+        entries.sortedWith(compareBy({ it.range.startOffset }, { it.range.endOffset })).forEach { entry ->
+            val cluster = current
+            if (cluster != null && entry.range.startOffset <= cluster.endOffset) {
+                cluster.add(entry)
+            } else {
+                current = Cluster<T>(entry.range.startOffset, entry.range.endOffset).also {
+                    it.add(entry)
+                    clusters.add(it)
+                }
+            }
+        }
+        return clusters
+    }
+
+    private fun distance(range: TextRange, visibleRange: TextRange?): Int {
+        return when {
+            visibleRange == null -> range.startOffset
+            range.endOffset < visibleRange.startOffset -> visibleRange.startOffset - range.endOffset
+            else -> (range.startOffset - visibleRange.endOffset).coerceAtLeast(0)
+        }
+    }
+
+    private class Entry<T>(val range: TextRange, val planned: T?, val applied: AppliedHighlight?)
+
+    private class Cluster<T>(val startOffset: Int, var endOffset: Int) {
+        val planned = mutableListOf<T>()
+        val applied = mutableListOf<AppliedHighlight>()
+
+        val size get() = planned.size + applied.size
+
+        fun add(entry: Entry<T>) {
+            entry.planned?.let { planned.add(it) }
+            entry.applied?.let { applied.add(it) }
+            endOffset = maxOf(endOffset, entry.range.endOffset)
+        }
+
+        fun isChanged(rangeOf: (T) -> TextRange, keyOf: (T) -> Any): Boolean {
+            if (planned.size != applied.size) {
+                return true
+            }
+            val desired = planned.groupingBy { AppliedHighlight(rangeOf(it), keyOf(it)) }.eachCount()
+            return desired != applied.groupingBy { it }.eachCount()
+        }
+    }
+
+}
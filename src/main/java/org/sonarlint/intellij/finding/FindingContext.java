@@ -23,12 +23,11 @@ import java.util.List;
 import org.sonarlint.intellij.common.util.SonarLintUtils;
 
 public class FindingContext {
-  private final String summaryDescription;
   private final List<Flow> flows;
+  private String summaryDescription;
 
   public FindingContext(List<Flow> flows) {
-    this.flows = flows;
-    summaryDescription = computeSummaryDescription();
+    this.flows = List.copyOf(flows);
   }
 
   private String computeSummaryDescription() {
@@ -43,6 +42,10 @@ public class FindingContext {
   }
 
   public String getSummaryDescription() {
+    // Computed on first display only, the description is not needed for most findings
+    if (summaryDescription == null) {
+      summaryDescription = computeSummaryDescription();
+    }
     return summaryDescription;
   }
 
@@ -0,0 +1,50 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.finding
+
+/**
+ * Number of unresolved findings of a file, in total and on new code. Computed when the findings are published or change
+ * status, so that frequently refreshed widgets do not have to go through the findings.
+ */
+data class FindingsCount(val unresolved: Int, val unresolvedOnNewCode: Int) {
+
+    fun relevant(isFocusOnNewCode: Boolean) = if (isFocusOnNewCode) unresolvedOnNewCode else unresolved
+
+    companion object {
+        @JvmField
+        val NONE = FindingsCount(0, 0)
+
+        @JvmStatic
+        fun of(findings: Collection<Finding>): FindingsCount {
+            var unresolved = 0
+            var unresolvedOnNewCode = 0
+            findings.forEach {
+                if (!it.isResolved()) {
+                    unresolved++
+                    if (it.isOnNewCode()) {
+                        unresolvedOnNewCode++
+                    }
+                }
+            }
+            return FindingsCount(unresolved, unresolvedOnNewCode)
+        }
+    }
+
+}
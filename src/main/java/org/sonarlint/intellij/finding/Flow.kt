@@ -21,10 +21,13 @@ package org.sonarlint.intellij.finding
 
 import com.intellij.openapi.vfs.VirtualFile
 
-class Flow(val position: Int, val locations: List<Location>) {
-    val crossFileFlowFragments = run {
+class Flow(val position: Int, locations: List<Location>) {
+    val locations = locations.toList()
+
+    // Only needed when the flow is displayed, most findings never get there
+    val crossFileFlowFragments by lazy(LazyThreadSafetyMode.PUBLICATION) {
         var fragmentIndex = 0
-        locations.foldIndexed(mutableListOf<SameFileFlowFragment>()) { index, acc, location ->
+        this.locations.foldIndexed(mutableListOf<SameFileFlowFragment>()) { index, acc, location ->
             var last = acc.lastOrNull()
             if (last == null || last.file != location.file) {
                 last = SameFileFlowFragment(location.file, fragmentIndex++, location.originalFileName)
@@ -35,7 +38,7 @@ class Flow(val position: Int, val locations: List<Location>) {
         }.toList()
     }
 
-    val isCrossFileFlow = crossFileFlowFragments.size > 1
+    val isCrossFileFlow get() = (1 until locations.size).any { locations[it].file != locations[it - 1].file }
     fun hasMoreThanOneLocation() = locations.size > 1
 }
 
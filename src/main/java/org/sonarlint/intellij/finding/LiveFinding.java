@@ -24,10 +24,11 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.util.DocumentUtil;
 import java.time.Instant;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -40,6 +41,7 @@ import org.sonarsource.sonarlint.core.client.utils.SoftwareQuality;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.ImpactDto;
 import org.sonarsource.sonarlint.core.rpc.protocol.client.issue.RaisedFindingDto;
 import org.sonarsource.sonarlint.core.rpc.protocol.common.IssueSeverity;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.RuleType;
 
 import static org.sonarlint.intellij.common.ui.ReadActionUtils.computeReadActionSafely;
 
@@ -50,21 +52,15 @@ public abstract class LiveFinding implements Finding {
   private final RangeMarker range;
   private final VirtualFile virtualFile;
   private final String message;
-  private final String ruleKey;
+  private final RuleAttributes ruleAttributes;
   private final boolean isOnNewCode;
   private final FindingContext context;
   private final List<QuickFix> quickFixes;
-  private final String ruleDescriptionContextKey;
-  private final CleanCodeAttribute cleanCodeAttribute;
-  private final List<ImpactDto> impacts;
-  private final IssueSeverity severity;
-  private final SoftwareQuality highestQuality;
-  private final ImpactSeverity highestImpact;
-  private final boolean isMqrMode;
   private final String serverFindingKey;
 
   private Instant introductionDate;
   private boolean resolved;
+  private volatile Validity validity;
 
   protected LiveFinding(Module module, RaisedFindingDto finding, VirtualFile virtualFile, @Nullable RangeMarker range, @Nullable FindingContext context,
     List<QuickFix> quickFixes) {
@@ -73,36 +69,13 @@ public abstract class LiveFinding implements Finding {
     this.module = module;
     this.range = range;
     this.message = finding.getPrimaryMessage();
-    this.ruleKey = finding.getRuleKey();
+    this.ruleAttributes = RuleAttributes.of(finding);
     this.virtualFile = virtualFile;
     this.context = context;
-    this.quickFixes = quickFixes;
-    this.ruleDescriptionContextKey = finding.getRuleDescriptionContextKey();
+    this.quickFixes = quickFixes.isEmpty() ? List.of() : quickFixes;
     this.introductionDate = finding.getIntroductionDate();
     this.isOnNewCode = finding.isOnNewCode();
     this.resolved = finding.isResolved();
-    this.isMqrMode = finding.getSeverityMode().isRight();
-
-    if (finding.getSeverityMode().isLeft()) {
-      this.severity = finding.getSeverityMode().getLeft().getSeverity();
-      this.cleanCodeAttribute = null;
-      this.impacts = Collections.emptyList();
-      this.highestQuality = null;
-      this.highestImpact = null;
-    } else {
-      this.severity = null;
-      this.cleanCodeAttribute = CleanCodeAttribute.fromDto(finding.getSeverityMode().getRight().getCleanCodeAttribute());
-      this.impacts = finding.getSeverityMode().getRight().getImpacts();
-      // Is empty for Security Hotspots
-      if (!impacts.isEmpty()) {
-        var highestQualityImpact = Collections.max(impacts, Comparator.comparing(ImpactDto::getImpactSeverity));
-        this.highestQuality = SoftwareQuality.fromDto(highestQualityImpact.getSoftwareQuality());
-        this.highestImpact = ImpactSeverity.fromDto(highestQualityImpact.getImpactSeverity());
-      } else {
-        this.highestQuality = null;
-        this.highestImpact = null;
-      }
-    }
   }
 
   @NotNull
@@ -118,13 +91,58 @@ public abstract class LiveFinding implements Finding {
     return backendId;
   }
 
+  /**
+   * The result is cached until the document or the VFS structure changes, so renderers can call it repeatedly.
+   * Prefer {@link #filterValid(Collection)} when checking many findings.
+   */
   @Override
   public boolean isValid() {
-    if (Boolean.TRUE.equals(computeReadActionSafely(virtualFile, virtualFile::isValid))) {
-      return range == null || range.isValid();
-    } else {
-      return false;
+    var cached = validity;
+    var stamp = currentValidityStamp();
+    if (cached != null && cached.stamp().equals(stamp)) {
+      return cached.valid();
+    }
+    return Boolean.TRUE.equals(computeReadActionSafely(virtualFile, () -> refreshValidity(stamp)));
+  }
+
+  /**
+   * Returns the valid findings among the given ones, see {@link #computeValidity(Collection)}.
+   */
+  public static <T extends LiveFinding> List<T> filterValid(Collection<T> findings) {
+    computeValidity(findings);
+    return findings.stream().filter(LiveFinding::isValid).toList();
+  }
+
+  /**
+   * Evaluates the validity of all the given findings whose cached value is outdated, in a single read action instead of
+   * one read action per finding. Subsequent calls to {@link #isValid()} (e.g. from tree renderers) are then cheap.
+   */
+  public static void computeValidity(Collection<? extends LiveFinding> findings) {
+    var outdated = new ArrayList<LiveFinding>();
+    for (LiveFinding finding : findings) {
+      var cached = finding.validity;
+      if (cached == null || !cached.stamp().equals(finding.currentValidityStamp())) {
+        outdated.add(finding);
+      }
     }
+    if (!outdated.isEmpty()) {
+      computeReadActionSafely(() -> {
+        outdated.forEach(finding -> finding.refreshValidity(finding.currentValidityStamp()));
+        return null;
+      });
+    }
+  }
+
+  private boolean refreshValidity(ValidityStamp stamp) {
+    var valid = virtualFile.isValid() && (range == null || range.isValid());
+    validity = new Validity(stamp, valid);
+    return valid;
+  }
+
+  private ValidityStamp currentValidityStamp() {
+    // A range marker only becomes invalid when its document changes, a file only when the VFS structure changes
+    var documentStamp = range == null ? -1L : range.getDocument().getModificationStamp();
+    return new ValidityStamp(documentStamp, VirtualFileManager.getInstance().getStructureModificationCount());
   }
 
   public String getMessage() {
@@ -134,7 +152,7 @@ public abstract class LiveFinding implements Finding {
   @NotNull
   @Override
   public String getRuleKey() {
-    return ruleKey;
+    return ruleAttributes.getRuleKey();
   }
 
   @CheckForNull
@@ -177,7 +195,7 @@ public abstract class LiveFinding implements Finding {
 
   @Nullable
   public IssueSeverity getUserSeverity() {
-    return severity;
+    return ruleAttributes.getSeverity();
   }
 
   public Instant getIntroductionDate() {
@@ -197,13 +215,13 @@ public abstract class LiveFinding implements Finding {
   @Nullable
   @Override
   public CleanCodeAttribute getCleanCodeAttribute() {
-    return this.cleanCodeAttribute;
+    return ruleAttributes.getCleanCodeAttribute();
   }
 
   @NotNull
   @Override
   public List<ImpactDto> getImpacts() {
-    return this.impacts;
+    return ruleAttributes.getImpacts();
   }
 
   public void setIntroductionDate(@Nullable Instant introductionDate) {
@@ -225,7 +243,7 @@ public abstract class LiveFinding implements Finding {
   @Nullable
   @Override
   public String getRuleDescriptionContextKey() {
-    return ruleDescriptionContextKey;
+    return ruleAttributes.getRuleDescriptionContextKey();
   }
 
   public boolean isOnNewCode() {
@@ -235,17 +253,31 @@ public abstract class LiveFinding implements Finding {
   @Nullable
   @Override
   public SoftwareQuality getHighestQuality() {
-    return highestQuality;
+    return ruleAttributes.getHighestQuality();
   }
 
   @Nullable
   @Override
   public ImpactSeverity getHighestImpact() {
-    return highestImpact;
+    return ruleAttributes.getHighestImpact();
   }
 
   public boolean isMqrMode() {
-    return isMqrMode;
+    return ruleAttributes.isMqrMode();
+  }
+
+  /**
+   * Type of the rule in standard mode, null in MQR mode.
+   */
+  @CheckForNull
+  protected RuleType getStandardModeType() {
+    return ruleAttributes.getType();
+  }
+
+  private record ValidityStamp(long documentStamp, long vfsStructureStamp) {
+  }
+
+  private record Validity(ValidityStamp stamp, boolean valid) {
   }
 
 }
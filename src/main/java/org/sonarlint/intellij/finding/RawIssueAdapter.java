@@ -26,7 +26,6 @@ import com.intellij.psi.PsiFile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -86,11 +85,11 @@ public class RawIssueAdapter {
 
   private static Optional<FindingContext> transformFlows(Project project, TextRangeMatcher matcher, PsiFile psiFile,
     List<IssueFlowDto> flows, String rule) {
-    List<Flow> matchedFlows = new LinkedList<>();
+    List<Flow> matchedFlows = new ArrayList<>(flows.size());
 
     for (var i = 0; i < flows.size(); i++) {
       var flow = flows.get(i);
-      List<Location> matchedLocations = new LinkedList<>();
+      List<Location> matchedLocations = new ArrayList<>(flow.getLocations().size());
       for (var loc : flow.getLocations()) {
         try {
           var textRange = loc.getTextRange();
@@ -165,6 +164,9 @@ public class RawIssueAdapter {
 
   private static List<QuickFix> transformQuickFixes(Project project,
     List<QuickFixDto> quickFixes, @Nullable Long modificationStamp) {
+    if (quickFixes.isEmpty()) {
+      return List.of();
+    }
     return quickFixes
       .stream().map(fix -> convert(project, fix, modificationStamp))
       .filter(Objects::nonNull)
@@ -0,0 +1,179 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.finding;
+
+import com.intellij.util.containers.Interner;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.utils.CleanCodeAttribute;
+import org.sonarsource.sonarlint.core.client.utils.ImpactSeverity;
+import org.sonarsource.sonarlint.core.client.utils.SoftwareQuality;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.ImpactDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.client.issue.RaisedFindingDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.client.issue.RaisedIssueDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.IssueSeverity;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.RuleType;
+
+/**
+ * Rule-level attributes of a finding. They are identical for all the findings of a rule, so instances are interned and
+ * shared: a report of thousands of findings keeps one copy of each rule key and impacts list instead of one per finding.
+ */
+final class RuleAttributes {
+
+  private static final Interner<RuleAttributes> INTERNER = Interner.createWeakInterner();
+
+  private final String ruleKey;
+  @Nullable
+  private final String ruleDescriptionContextKey;
+  private final boolean isMqrMode;
+  @Nullable
+  private final IssueSeverity severity;
+  @Nullable
+  private final RuleType type;
+  @Nullable
+  private final CleanCodeAttribute cleanCodeAttribute;
+  private final List<ImpactDto> impacts;
+  @Nullable
+  private final SoftwareQuality highestQuality;
+  @Nullable
+  private final ImpactSeverity highestImpact;
+  private final int hashCode;
+
+  private RuleAttributes(RaisedFindingDto finding) {
+    this.ruleKey = finding.getRuleKey();
+    this.ruleDescriptionContextKey = finding.getRuleDescriptionContextKey();
+    this.isMqrMode = finding.getSeverityMode().isRight();
+    if (finding.getSeverityMode().isLeft()) {
+      var standardMode = finding.getSeverityMode().getLeft();
+      this.severity = standardMode.getSeverity();
+      // Hotspots are always in the hotspot type, only issues carry their own
+      this.type = finding instanceof RaisedIssueDto ? standardMode.getType() : null;
+      this.cleanCodeAttribute = null;
+      this.impacts = Collections.emptyList();
+      this.highestQuality = null;
+      this.highestImpact = null;
+    } else {
+      var mqrMode = finding.getSeverityMode().getRight();
+      this.severity = null;
+      this.type = null;
+      this.cleanCodeAttribute = CleanCodeAttribute.fromDto(mqrMode.getCleanCodeAttribute());
+      this.impacts = List.copyOf(mqrMode.getImpacts());
+      // Is empty for Security Hotspots
+      if (!impacts.isEmpty()) {
+        var highestQualityImpact = Collections.max(impacts, Comparator.comparing(ImpactDto::getImpactSeverity));
+        this.highestQuality = SoftwareQuality.fromDto(highestQualityImpact.getSoftwareQuality());
+        this.highestImpact = ImpactSeverity.fromDto(highestQualityImpact.getImpactSeverity());
+      } else {
+        this.highestQuality = null;
+        this.highestImpact = null;
+      }
+    }
+    this.hashCode = Objects.hash(ruleKey, ruleDescriptionContextKey, isMqrMode, severity, type, cleanCodeAttribute, highestQuality, highestImpact,
+      impacts.size());
+  }
+
+  static RuleAttributes of(RaisedFindingDto finding) {
+    return INTERNER.intern(new RuleAttributes(finding));
+  }
+
+  String getRuleKey() {
+    return ruleKey;
+  }
+
+  @CheckForNull
+  String getRuleDescriptionContextKey() {
+    return ruleDescriptionContextKey;
+  }
+
+  boolean isMqrMode() {
+    return isMqrMode;
+  }
+
+  @CheckForNull
+  IssueSeverity getSeverity() {
+    return severity;
+  }
+
+  @CheckForNull
+  RuleType getType() {
+    return type;
+  }
+
+  @CheckForNull
+  CleanCodeAttribute getCleanCodeAttribute() {
+    return cleanCodeAttribute;
+  }
+
+  List<ImpactDto> getImpacts() {
+    return impacts;
+  }
+
+  @CheckForNull
+  SoftwareQuality getHighestQuality() {
+    return highestQuality;
+  }
+
+  @CheckForNull
+  ImpactSeverity getHighestImpact() {
+    return highestImpact;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RuleAttributes other)) {
+      return false;
+    }
+    return hashCode == other.hashCode
+      && isMqrMode == other.isMqrMode
+      && Objects.equals(ruleKey, other.ruleKey)
+      && Objects.equals(ruleDescriptionContextKey, other.ruleDescriptionContextKey)
+      && severity == other.severity
+      && type == other.type
+      && Objects.equals(cleanCodeAttribute, other.cleanCodeAttribute)
+      && sameImpacts(impacts, other.impacts);
+  }
+
+  private static boolean sameImpacts(List<ImpactDto> impacts, List<ImpactDto> otherImpacts) {
+    if (impacts.size() != otherImpacts.size()) {
+      return false;
+    }
+    for (var i = 0; i < impacts.size(); i++) {
+      var impact = impacts.get(i);
+      var otherImpact = otherImpacts.get(i);
+      if (impact.getSoftwareQuality() != otherImpact.getSoftwareQuality() || impact.getImpactSeverity() != otherImpact.getImpactSeverity()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+}
@@ -35,8 +35,6 @@ import org.sonarsource.sonarlint.core.rpc.protocol.common.RuleType;
 
 public class LiveIssue extends LiveFinding implements Issue {
 
-  @Nullable
-  private final RuleType type;
   private final boolean isAiCodeFixable;
   @Nullable
   private final ResolutionStatus status;
@@ -47,11 +45,6 @@ public class LiveIssue extends LiveFinding implements Issue {
 
   public LiveIssue(Module module, RaisedIssueDto issue, VirtualFile virtualFile, @Nullable RangeMarker range, @Nullable FindingContext context, List<QuickFix> quickFixes) {
     super(module, issue, virtualFile, range, context, quickFixes);
-    if (issue.getSeverityMode().isLeft()) {
-      this.type = issue.getSeverityMode().getLeft().getType();
-    } else {
-      this.type = null;
-    }
     this.isAiCodeFixable = issue.isAiCodeFixable();
     this.status = issue.getResolutionStatus();
   }
@@ -59,7 +52,7 @@ public class LiveIssue extends LiveFinding implements Issue {
   @CheckForNull
   @Override
   public RuleType getType() {
-    return type;
+    return getStandardModeType();
   }
 
   @Override
@@ -23,24 +23,61 @@ import com.intellij.openapi.components.Service
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+import org.sonarlint.intellij.finding.FindingsCount
 
 @Service(Service.Level.PROJECT)
 class TaintVulnerabilitiesCache(val project: Project) {
 
-    var taintVulnerabilities: List<LocalTaintVulnerability> = emptyList()
+    @Volatile
+    private var index = TaintVulnerabilitiesIndex(emptyList())
+
+    var taintVulnerabilities: List<LocalTaintVulnerability>
+        get() = index.taintVulnerabilities
+        set(value) {
+            index = TaintVulnerabilitiesIndex(value)
+        }
 
     fun update(taintVulnerabilityIdsToRemove: Set<UUID>, taintVulnerabilitiesToAdd: List<LocalTaintVulnerability>, taintVulnerabilitiesToUpdate: List<LocalTaintVulnerability>) {
         val currentTaintVulnerabilities = taintVulnerabilities.toMutableList()
         currentTaintVulnerabilities.removeAll { it.getId() in taintVulnerabilityIdsToRemove }
         currentTaintVulnerabilities.addAll(taintVulnerabilitiesToAdd)
-        val updatedTaintVulnerabilityKeys = taintVulnerabilitiesToUpdate.map { updatedTaint -> updatedTaint.getServerKey() }
+        val updatedTaintVulnerabilityKeys = taintVulnerabilitiesToUpdate.map { updatedTaint -> updatedTaint.getServerKey() }.toSet()
         currentTaintVulnerabilities.removeAll { it.getServerKey() in updatedTaintVulnerabilityKeys }
         currentTaintVulnerabilities.addAll(taintVulnerabilitiesToUpdate)
         taintVulnerabilities = currentTaintVulnerabilities
     }
 
     fun getTaintVulnerabilitiesForFile(file: VirtualFile) : List<LocalTaintVulnerability> {
-        return taintVulnerabilities.filter { it.file() == file }
+        return index.forFile(file)
+    }
+
+    fun getTaintVulnerabilitiesCountForFile(file: VirtualFile): FindingsCount {
+        return index.countForFile(file)
+    }
+
+    /**
+     * To be called when a taint vulnerability is resolved or reopened, so that the count of its file reflects the new status.
+     */
+    fun findingStatusChanged(taintVulnerability: LocalTaintVulnerability) {
+        taintVulnerability.file()?.let { index.invalidateCount(it) }
+    }
+
+    /**
+     * Taint vulnerabilities indexed by file once per publication, the per-file lookups happen on every refresh of the
+     * editor widgets.
+     */
+    private class TaintVulnerabilitiesIndex(val taintVulnerabilities: List<LocalTaintVulnerability>) {
+        private val perFile = taintVulnerabilities.filter { it.file() != null }.groupBy { it.file()!! }
+        private val countPerFile: MutableMap<VirtualFile, FindingsCount> = ConcurrentHashMap()
+
+        fun forFile(file: VirtualFile) = perFile[file] ?: emptyList()
+
+        fun countForFile(file: VirtualFile) = countPerFile.computeIfAbsent(file) { FindingsCount.of(forFile(it)) }
+
+        fun invalidateCount(file: VirtualFile) {
+            countPerFile.remove(file)
+        }
     }
 
 }
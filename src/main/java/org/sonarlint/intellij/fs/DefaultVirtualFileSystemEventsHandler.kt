@@ -65,28 +65,43 @@ open class DefaultVirtualFileSystemEventsHandler @NonInjectable constructor(priv
         openProjects: List<Project>,
         eventTypeConverter: (VFileEvent) -> ModuleFileEvent.Type?,
     ): Map<Module, List<VirtualFileEvent>> {
-        val map: MutableMap<Module, List<VirtualFileEvent>> = mutableMapOf()
+        val eventsInModules = mutableListOf<EventInModule>()
         for (event in events) {
             // call event.file only once as it can be hurting performance
             val file = event.file ?: continue
             if (ProjectCoreUtil.isProjectOrWorkspaceFile(file)) continue
             val fileModule = findModule(file, openProjects) ?: continue
-            if (!FileUtils.isFileValidForSonarLintWithExtensiveChecks(file, fileModule.project)) continue
+            eventsInModules.add(EventInModule(event, file, fileModule))
+        }
+        // Check the files of all the events at once rather than one read action per file
+        val validFilesByProject = eventsInModules.groupBy({ it.module.project }, { it.file })
+            .mapValues { (project, files) -> FileUtils.filterValidForSonarLintWithExtensiveChecks(files, project).toHashSet() }
+
+        val map: MutableMap<Module, MutableList<VirtualFileEvent>> = mutableMapOf()
+        for ((event, file, fileModule) in eventsInModules) {
+            if (validFilesByProject[fileModule.project]?.contains(file) != true) continue
             val fileInvolved = if (event is VFileCopyEvent) event.findCreatedFile() else file
             fileInvolved ?: continue
             val type = eventTypeConverter(event) ?: continue
-            val moduleEvents = map[fileModule] ?: emptyList()
-            map[fileModule] = moduleEvents + allEventsFor(fileInvolved, fileModule, type)
+            val fileEvents = allEventsFor(fileInvolved, fileInvolved != file, fileModule, type)
+            if (fileEvents.isNotEmpty()) {
+                map.getOrPut(fileModule) { mutableListOf() }.addAll(fileEvents)
+            }
         }
         return map
     }
 
     private fun allEventsFor(
         file: VirtualFile,
+        needsValidityCheck: Boolean,
         fileModule: Module,
         type: ModuleFileEvent.Type,
     ): List<VirtualFileEvent> {
-        return visitAndAddAllChildren(file, fileModule.project).mapNotNull { VirtualFileEvent(type, it) }
+        if (!needsValidityCheck && !file.isDirectory) {
+            // Already checked along with the other files of the batch
+            return listOf(VirtualFileEvent(type, file))
+        }
+        return visitAndAddAllChildren(file, fileModule.project).map { VirtualFileEvent(type, it) }
     }
 
     private fun findModule(file: VirtualFile?, openProjects: List<Project>): Module? {
@@ -100,4 +115,6 @@ open class DefaultVirtualFileSystemEventsHandler @NonInjectable constructor(priv
     override fun dispose() {
         executorService.shutdownNow()
     }
+
+    private data class EventInModule(val event: VFileEvent, val file: VirtualFile, val module: Module)
 }
@@ -25,17 +25,15 @@ import com.intellij.openapi.project.Project
 import com.intellij.util.Function
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.config.Settings.getSettingsFor
-import org.sonarlint.intellij.core.BackendService
-import org.sonarlint.intellij.util.runOnPooledThread
 
 class ModuleChangeListener(val project: Project) : ModuleListener {
 
     override fun modulesAdded(project: Project, modules: List<Module>) {
-        runOnPooledThread(project) { getService(BackendService::class.java).modulesAdded(project, modules) }
+        getService(project, ModuleScopesSynchronizer::class.java).modulesAdded(modules)
     }
 
     override fun moduleRemoved(project: Project, module: Module) {
-        runOnPooledThread(project) { getService(BackendService::class.java).moduleRemoved(module) }
+        getService(project, ModuleScopesSynchronizer::class.java).moduleRemoved(module)
     }
 
     override fun modulesRenamed(project: Project, modules: MutableList<out Module>, oldNameProvider: Function<in Module, String>) {
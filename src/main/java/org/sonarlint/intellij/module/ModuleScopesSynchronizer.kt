@@ -0,0 +1,149 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.module
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.module.Module
+import com.intellij.openapi.module.ModuleManager
+import com.intellij.openapi.project.Project
+import com.intellij.util.Alarm
+import org.sonarlint.intellij.common.ui.ReadActionUtils.Companion.computeReadActionSafely
+import org.sonarlint.intellij.common.util.SonarLintUtils.getService
+import org.sonarlint.intellij.core.BackendService
+import org.sonarlint.intellij.core.BackendService.Companion.moduleId
+import org.sonarlint.intellij.core.ModuleBindingManager
+import org.sonarlint.intellij.util.GlobalLogOutput
+import org.sonarsource.sonarlint.core.client.utils.ClientLogOutput
+
+/**
+ * Keeps the backend configuration scopes in sync with the modules of the project.
+ *
+ * A Gradle or Maven reimport removes, adds and renames modules in bursts, often removing a module and adding it back
+ * right after. Module changes are collected for [DEBOUNCE_DELAY_MS] after the last one (and at most [MAX_DELAY_MS]),
+ * then reconciled against the module model in a single read action: only the net difference is sent to the backend.
+ */
+@Service(Service.Level.PROJECT)
+class ModuleScopesSynchronizer(private val project: Project) : Disposable {
+
+    private val alarm = Alarm(Alarm.ThreadToUse.POOLED_THREAD, this)
+    private val lock = Any()
+    private var addedModules = LinkedHashMap<String, Module>()
+    private var removedModuleIds = LinkedHashSet<String>()
+    private var projectKeysAtRemoval = HashMap<String, String?>()
+    private var firstPendingChangeMs = 0L
+
+    fun modulesAdded(modules: List<Module>) {
+        synchronized(lock) {
+            modules.forEach { module ->
+                val moduleId = moduleId(module)
+                addedModules[moduleId] = module
+                removedModuleIds.remove(moduleId)
+            }
+            scheduleFlush()
+        }
+    }
+
+    fun moduleRemoved(module: Module) {
+        synchronized(lock) {
+            val moduleId = moduleId(module)
+            val wasPendingAddition = addedModules.remove(moduleId) != null
+            // Remember the binding the backend knows for this scope, to detect whether a module added back changed it
+            if (!wasPendingAddition && moduleId !in projectKeysAtRemoval && !module.isDisposed) {
+                projectKeysAtRemoval[moduleId] = configuredProjectKeyOf(module)
+            }
+            removedModuleIds.add(moduleId)
+            scheduleFlush()
+        }
+    }
+
+    private fun scheduleFlush() {
+        if (project.isDisposed) {
+            return
+        }
+        val now = System.currentTimeMillis()
+        if (firstPendingChangeMs == 0L) {
+            firstPendingChangeMs = now
+        }
+        val elapsed = (now - firstPendingChangeMs).toInt()
+        val delay = DEBOUNCE_DELAY_MS.coerceAtMost(MAX_DELAY_MS - elapsed).coerceAtLeast(0)
+        alarm.cancelAllRequests()
+        alarm.addRequest(::flush, delay)
+    }
+
+    /**
+     * Sends the pending module changes to the backend right away. Changes made to a module that was added back (or removed
+     * again) in the meantime are resolved against the current module model.
+     */
+    fun flush() {
+        val (added, removed, projectKeysBeforeRemoval) = synchronized(lock) {
+            alarm.cancelAllRequests()
+            val pending = Triple(addedModules, removedModuleIds, projectKeysAtRemoval)
+            addedModules = LinkedHashMap()
+            removedModuleIds = LinkedHashSet()
+            projectKeysAtRemoval = HashMap()
+            firstPendingChangeMs = 0L
+            pending
+        }
+        if ((added.isEmpty() && removed.isEmpty()) || project.isDisposed) {
+            // Scopes of a closed project are removed when the project is closed
+            return
+        }
+        val (currentModules, projectKeys) = computeReadActionSafely(project) {
+            val modules = ModuleManager.getInstance(project).modules.associateBy { moduleId(it) }
+            modules to added.keys.mapNotNull { modules[it] }.associate { moduleId(it) to configuredProjectKeyOf(it) }
+        } ?: return
+
+        // A module removed and added back during the reimport keeps its scope, it is only updated if its binding changed
+        val modulesToAdd = added.keys.mapNotNull { currentModules[it] }.filter { module ->
+            val moduleId = moduleId(module)
+            moduleId !in projectKeysBeforeRemoval || projectKeysBeforeRemoval[moduleId] != projectKeys[moduleId]
+        }
+        val moduleIdsToRemove = removed.filter { it !in currentModules }
+        GlobalLogOutput.get().log(
+            "Synchronizing modules: ${modulesToAdd.size} added, ${moduleIdsToRemove.size} removed " +
+                "(${added.size + removed.size} changes received)", ClientLogOutput.Level.DEBUG
+        )
+
+        val backendService = getService(BackendService::class.java)
+        if (moduleIdsToRemove.isNotEmpty()) {
+            backendService.moduleScopesRemoved(moduleIdsToRemove)
+        }
+        if (modulesToAdd.isNotEmpty()) {
+            backendService.modulesAdded(project, modulesToAdd)
+        }
+    }
+
+    override fun dispose() {
+        synchronized(lock) {
+            addedModules.clear()
+            removedModuleIds.clear()
+            projectKeysAtRemoval.clear()
+        }
+    }
+
+    private fun configuredProjectKeyOf(module: Module) = getService(module, ModuleBindingManager::class.java).configuredProjectKey
+
+    companion object {
+        private const val DEBOUNCE_DELAY_MS = 500
+        private const val MAX_DELAY_MS = 5_000
+    }
+
+}
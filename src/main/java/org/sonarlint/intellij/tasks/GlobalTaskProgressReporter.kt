@@ -21,7 +21,9 @@ package org.sonarlint.intellij.tasks
 
 import com.intellij.openapi.module.Module
 import com.intellij.openapi.project.Project
+import java.util.UUID
 import org.sonarlint.intellij.analysis.GlobalBackgroundTaskTracker
+import org.sonarlint.intellij.analysis.RunningAnalysesTracker
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.core.BackendService
 
@@ -34,24 +36,29 @@ class GlobalTaskProgressReporter(
 
     private val modulesPerTaskId = mutableMapOf<String, Module>()
     private val modulesDone = mutableListOf<Module>()
-    private var isCancelled = false
+    var isCancelled = false
+        private set
 
     init {
         updateText("SonarQube: Analysis 1 out of $totalTasks modules")
     }
 
     override fun onCancel() {
-        isCancelled = true
-        modulesPerTaskId.keys.forEach { id ->
-            getService(BackendService::class.java).cancelTask(id)
-        }
+        cancelAllTasks()
         super.onCancel()
     }
 
     fun cancelAllTasks() {
         isCancelled = true
-        modulesPerTaskId.keys.forEach { id ->
-            getService(BackendService::class.java).cancelTask(id)
+        modulesPerTaskId.keys.toList().forEach { id ->
+            val project = project
+            val analysisId = toAnalysisId(id)
+            if (project != null && !project.isDisposed && analysisId != null) {
+                // Also releases the scheduling slot, the backend may never report the end of a cancelled analysis
+                getService(project, RunningAnalysesTracker::class.java).cancel(analysisId)
+            } else {
+                getService(BackendService::class.java).cancelTask(id)
+            }
         }
     }
 
@@ -86,6 +93,12 @@ class GlobalTaskProgressReporter(
         }
     }
 
+    private fun toAnalysisId(taskId: String) = try {
+        UUID.fromString(taskId)
+    } catch (_: IllegalArgumentException) {
+        null
+    }
+
     private fun checkIfGloballyFinished() {
         if (modulesDone.size == totalTasks) {
             complete()
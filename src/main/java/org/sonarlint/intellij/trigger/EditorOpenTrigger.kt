@@ -19,11 +19,17 @@
  */
 package org.sonarlint.intellij.trigger
 
+import com.intellij.openapi.Disposable
 import com.intellij.openapi.components.Service
 import com.intellij.openapi.fileEditor.FileEditorManager
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent
 import com.intellij.openapi.fileEditor.FileEditorManagerListener
+import com.intellij.openapi.module.Module
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.Alarm
+import java.util.concurrent.ConcurrentHashMap
+import org.sonarlint.intellij.common.util.FileUtils.filterValidForSonarLintWithExtensiveChecks
 import org.sonarlint.intellij.common.util.FileUtils.isFileValidForSonarLintWithExtensiveChecks
 import org.sonarlint.intellij.common.util.SonarLintUtils
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
@@ -34,25 +40,59 @@ import org.sonarlint.intellij.util.getOpenFiles
 import org.sonarlint.intellij.util.runOnPooledThread
 import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileEvent
 
+/**
+ * Notifies the backend about opened files, which triggers their analysis.
+ *
+ * When the project opens, the editors restored in the background would all be analyzed at once and compete with the
+ * ones the user is looking at. Only the selected editors are notified right away, background tabs are notified when they
+ * get selected, or all together after [DEFERRED_FILES_DELAY_MS].
+ */
 @Service(Service.Level.PROJECT)
-class EditorOpenTrigger(private val myProject: Project) : FileEditorManagerListener {
+class EditorOpenTrigger(private val myProject: Project) : FileEditorManagerListener, Disposable {
+
+    private val deferredFiles = ConcurrentHashMap.newKeySet<VirtualFile>()
+    private val deferredFilesAlarm = Alarm(Alarm.ThreadToUse.POOLED_THREAD, this)
+
     fun onProjectOpened() {
-        myProject.messageBus.connect().subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, this)
+        myProject.messageBus.connect(this).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, this)
 
         runOnPooledThread(myProject) {
-            myProject.getOpenFiles().forEach { file ->
-                findModuleForFile(file, myProject)?.let { module ->
-                    if (SonarLintUtils.isRider() && isFileValidForSonarLintWithExtensiveChecks(file, myProject)) {
-                        getService(BackendService::class.java)
-                            .updateFileSystem(mapOf(module to listOf(VirtualFileEvent(ModuleFileEvent.Type.CREATED, file))), true)
-                    }
+            val selectedFiles = FileEditorManager.getInstance(myProject).selectedFiles.toSet()
+            val (visibleFiles, backgroundFiles) = myProject.getOpenFiles().partition { it in selectedFiles }
+            deferredFiles.addAll(backgroundFiles)
+            notifyOpenedFiles(visibleFiles)
+            if (backgroundFiles.isNotEmpty()) {
+                deferredFilesAlarm.addRequest({ notifyOpenedFiles(takeDeferredFiles(backgroundFiles)) }, DEFERRED_FILES_DELAY_MS)
+            }
+        }
+    }
+
+    private fun takeDeferredFiles(files: Collection<VirtualFile>) = files.filter { deferredFiles.remove(it) }
 
-                    getService(BackendService::class.java).didOpenFile(module, file)
-                } ?: run {
-                    getService(BackendService::class.java).didOpenFile(myProject, file)
+    private fun notifyOpenedFiles(files: List<VirtualFile>) {
+        if (files.isEmpty() || myProject.isDisposed) {
+            return
+        }
+        val filesByModule = LinkedHashMap<Module, MutableList<VirtualFile>>()
+        val filesWithoutModule = mutableListOf<VirtualFile>()
+        files.forEach { file ->
+            findModuleForFile(file, myProject)?.let { filesByModule.getOrPut(it) { mutableListOf() }.add(file) } ?: filesWithoutModule.add(file)
+        }
+        val backendService = getService(BackendService::class.java)
+        if (SonarLintUtils.isRider()) {
+            // A single file system update for all the modules, instead of one per file
+            val validFiles = filterValidForSonarLintWithExtensiveChecks(filesByModule.values.flatten(), myProject).toSet()
+            val eventsByModule = filesByModule
+                .mapValues { (_, moduleFiles) ->
+                    moduleFiles.filter { it in validFiles }.map { VirtualFileEvent(ModuleFileEvent.Type.CREATED, it) }
                 }
+                .filterValues { it.isNotEmpty() }
+            if (eventsByModule.isNotEmpty()) {
+                backendService.updateFileSystem(eventsByModule, true)
             }
         }
+        filesByModule.forEach { (module, moduleFiles) -> moduleFiles.forEach { backendService.didOpenFile(module, it) } }
+        filesWithoutModule.forEach { backendService.didOpenFile(myProject, it) }
     }
 
     override fun fileOpened(source: FileEditorManager, file: VirtualFile) {
@@ -67,4 +107,23 @@ class EditorOpenTrigger(private val myProject: Project) : FileEditorManagerListe
         }
     }
 
+    override fun fileClosed(source: FileEditorManager, file: VirtualFile) {
+        deferredFiles.remove(file)
+    }
+
+    override fun selectionChanged(event: FileEditorManagerEvent) {
+        val file = event.newFile ?: return
+        if (deferredFiles.remove(file)) {
+            runOnPooledThread(myProject) { notifyOpenedFiles(listOf(file)) }
+        }
+    }
+
+    override fun dispose() {
+        deferredFiles.clear()
+    }
+
+    companion object {
+        private const val DEFERRED_FILES_DELAY_MS = 20_000
+    }
+
 }
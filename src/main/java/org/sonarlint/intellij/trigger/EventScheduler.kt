@@ -88,8 +88,7 @@ class EventScheduler(
     private fun notifyFileChangesForProject(project: Project, changedFiles: Set<VirtualFile>) {
         val filesToSendPerModule = HashMap<Module, MutableList<VirtualFileEvent>>()
 
-        changedFiles
-            .filter { FileUtils.isFileValidForSonarLintWithExtensiveChecks(it, project) }
+        FileUtils.filterValidForSonarLintWithExtensiveChecks(changedFiles, project)
             .forEach { file ->
                 val module = findModuleForFile(file, project) ?: return@forEach
                 filesToSendPerModule.computeIfAbsent(module) { mutableListOf() }.add(VirtualFileEvent(ModuleFileEvent.Type.MODIFIED, file))
@@ -38,6 +38,7 @@ import com.intellij.util.ui.JBUI
 import com.intellij.util.ui.SwingHelper
 import com.sun.management.HotSpotDiagnosticMXBean
 import org.sonar.api.utils.ZipUtils
+import org.sonarlint.intellij.SonarLintIntelliJClient
 import org.sonarlint.intellij.actions.SonarLintToolWindow
 import org.sonarlint.intellij.common.ui.SonarLintConsole
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
@@ -262,6 +263,8 @@ class SonarLintHelpAndFeedbackPanel(private val project: Project) : SimpleToolWi
 
     private fun stopRecording() {
         captureLogs()
+        captureBackendLogStatistics()
+        captureBackendExecutorMetrics()
         currentRecordingFolder?.let {
             archive(it)
             RevealFileAction.openDirectory(it.parent)
@@ -279,6 +282,25 @@ class SonarLintHelpAndFeedbackPanel(private val project: Project) : SimpleToolWi
         writeFile("logs-", SonarLintConsole.get(project).content)
     }
 
+    private fun captureBackendLogStatistics() {
+        val logLevel = getService(BackendService::class.java).getBackendLogLevel()
+        val receivedLogsCount = SonarLintIntelliJClient.getReceivedLogsCountByLevel().entries
+            .joinToString(System.lineSeparator()) { (level, count) -> "$level: $count" }
+        writeFile(
+            "backend-logs-statistics-",
+            "Backend log level: ${logLevel ?: "not initialized"}${System.lineSeparator()}" +
+                "Log messages received from the backend since the IDE started:${System.lineSeparator()}$receivedLogsCount"
+        )
+    }
+
+    private fun captureBackendExecutorMetrics() {
+        val metrics = getService(BackendService::class.java).getExecutorMetrics().joinToString(System.lineSeparator()) {
+            "${it.name}: ${it.queuedTasks} queued (${it.maxQueuedTasks} at most), ${it.completedTasks} completed, " +
+                "waited ${it.averageWaitMillis} ms on average (${it.maxWaitMillis} ms at most), ran ${it.averageRunMillis} ms on average"
+        }
+        writeFile("backend-executors-", "Backend executors since the IDE started:${System.lineSeparator()}$metrics")
+    }
+
     private fun startRecording() {
         currentRecordingFolder = recordingsRootPath.resolve("recording-" + timestamp())
     }
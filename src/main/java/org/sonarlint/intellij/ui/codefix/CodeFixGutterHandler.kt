@@ -19,58 +19,113 @@
  */
 package org.sonarlint.intellij.ui.codefix
 
+import com.intellij.openapi.Disposable
 import com.intellij.openapi.components.Service
 import com.intellij.openapi.editor.Editor
+import com.intellij.openapi.editor.EditorFactory
+import com.intellij.openapi.editor.event.EditorFactoryEvent
+import com.intellij.openapi.editor.event.EditorFactoryListener
+import com.intellij.openapi.editor.markup.HighlighterLayer
+import com.intellij.openapi.editor.markup.HighlighterTargetArea
 import com.intellij.openapi.editor.markup.RangeHighlighter
+import org.sonarlint.intellij.finding.Issue
+
+/**
+ * AI CodeFix gutter icons of an editor, one per line. Updates only add, remove or change the icons of the lines that
+ * differ, so that a refresh of hundreds of fixable issues does not re-create every highlighter.
+ */
+class GutterIconHolder(val editor: Editor) {
+    private val iconsByLine = HashMap<Int, RangeHighlighter>()
+
+    fun updateIcons(fixableIssuesByLine: Map<Int, List<Issue>>) {
+        val document = editor.document
+        // Edits may have moved the icons to other lines since the last update
+        val currentIconsByLine = HashMap<Int, RangeHighlighter>(iconsByLine.size)
+        iconsByLine.values.forEach { icon ->
+            if (!icon.isValid || currentIconsByLine.putIfAbsent(document.getLineNumber(icon.startOffset), icon) != null) {
+                removeIcon(icon)
+            }
+        }
+        iconsByLine.clear()
+
+        currentIconsByLine.forEach { (line, icon) ->
+            val issues = fixableIssuesByLine[line]
+            if (issues == null) {
+                removeIcon(icon)
+            } else {
+                if ((icon.gutterIconRenderer as? CodeFixGutterIconRenderer)?.issues != issues) {
+                    // Renderers are equal as long as they display the same icon, so this does not repaint the gutter
+                    icon.gutterIconRenderer = CodeFixGutterIconRenderer(editor, issues)
+                }
+                iconsByLine[line] = icon
+            }
+        }
+
+        fixableIssuesByLine.forEach { (line, issues) ->
+            if (line !in iconsByLine && line < document.lineCount) {
+                iconsByLine[line] = createIcon(document.getLineStartOffset(line), issues)
+            }
+        }
+    }
 
-data class GutterIconHolder(
-    val editor: Editor,
-    val icons: MutableSet<RangeHighlighter>
-) {
     fun clearIcons() {
-        icons.forEach { editor.markupModel.removeHighlighter(it) }
-        icons.clear()
+        iconsByLine.values.forEach { removeIcon(it) }
+        iconsByLine.clear()
+    }
+
+    private fun createIcon(startOffset: Int, issues: List<Issue>): RangeHighlighter {
+        return editor.markupModel.addRangeHighlighter(
+            null,
+            startOffset,
+            startOffset,
+            HighlighterLayer.LAST,
+            HighlighterTargetArea.LINES_IN_RANGE
+        ).apply {
+            gutterIconRenderer = CodeFixGutterIconRenderer(editor, issues)
+        }
+    }
+
+    private fun removeIcon(icon: RangeHighlighter) {
+        if (icon.isValid) {
+            editor.markupModel.removeHighlighter(icon)
+        }
     }
 }
 
 @Service(Service.Level.PROJECT)
-class CodeFixGutterHandler {
-
-    private val iconTaintHolders = mutableListOf<GutterIconHolder>()
-    private val iconIssueHolders = mutableListOf<GutterIconHolder>()
+class CodeFixGutterHandler : Disposable {
 
-    fun addTaintIcons(editor: Editor, icons: Set<RangeHighlighter>) {
-        iconTaintHolders.add(GutterIconHolder(editor, icons.toMutableSet()))
-    }
+    private val iconTaintHolders = HashMap<Editor, GutterIconHolder>()
+    private val iconIssueHolders = HashMap<Editor, GutterIconHolder>()
 
-    fun addIssueIcons(editor: Editor, icons: Set<RangeHighlighter>) {
-        iconIssueHolders.add(GutterIconHolder(editor, icons.toMutableSet()))
+    init {
+        EditorFactory.getInstance().addEditorFactoryListener(object : EditorFactoryListener {
+            override fun editorReleased(event: EditorFactoryEvent) {
+                iconTaintHolders.remove(event.editor)
+                iconIssueHolders.remove(event.editor)
+            }
+        }, this)
     }
 
-    fun cleanTaintIconsFromDisposedEditorsAndSelectedEditor(editor: Editor) {
-        cleanIconsFromDisposedEditorsAndSelectedEditor(iconTaintHolders, editor)
+    fun updateTaintIcons(editor: Editor, fixableTaintsByLine: Map<Int, List<Issue>>) {
+        updateIcons(iconTaintHolders, editor, fixableTaintsByLine)
     }
 
-    fun cleanIssueIconsFromDisposedEditorsAndSelectedEditor(editor: Editor) {
-        cleanIconsFromDisposedEditorsAndSelectedEditor(iconIssueHolders, editor)
+    fun updateIssueIcons(editor: Editor, fixableIssuesByLine: Map<Int, List<Issue>>) {
+        updateIcons(iconIssueHolders, editor, fixableIssuesByLine)
     }
 
-    private fun cleanIconsFromDisposedEditorsAndSelectedEditor(holders: MutableList<GutterIconHolder>, editor: Editor) {
-        // Iterate on disposed editors and remove the entries
-        val listIterator = holders.iterator()
-        while (listIterator.hasNext()) {
-            val item = listIterator.next()
-            if (item.editor.isDisposed) {
-                listIterator.remove()
-            }
+    private fun updateIcons(holders: MutableMap<Editor, GutterIconHolder>, editor: Editor, fixableIssuesByLine: Map<Int, List<Issue>>) {
+        if (editor.isDisposed) {
+            holders.remove(editor)
+            return
         }
+        holders.getOrPut(editor) { GutterIconHolder(editor) }.updateIcons(fixableIssuesByLine)
+    }
 
-        // For the selected editor, simply clear the icons as preparation for the new issues raised
-        holders.forEach { holder ->
-            if (holder.editor == editor) {
-                holder.clearIcons()
-            }
-        }
+    override fun dispose() {
+        iconTaintHolders.clear()
+        iconIssueHolders.clear()
     }
 
 }
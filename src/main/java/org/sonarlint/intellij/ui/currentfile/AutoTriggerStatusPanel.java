@@ -84,7 +84,7 @@ public class AutoTriggerStatusPanel {
 
     var selectedFile = SonarLintUtils.getSelectedFile(project);
     if (selectedFile != null) {
-      // Computing server exclusions may take time, so let's move from EDT to pooled thread
+      // Finding the module and computing exclusions may take time, so let's move from EDT to pooled thread
       runOnPooledThread(project, () -> {
         if (!getService(BackendService.class).isAlive()) {
           switchCard(AUTO_TRIGGER_DISABLED);
@@ -99,14 +99,21 @@ public class AutoTriggerStatusPanel {
 
   private void handleExcludedFiles(VirtualFile selectedFile) {
     var module = findModuleForFile(selectedFile, project);
-    if (module != null) {
-      var excludedFilesFromServer = getService(BackendService.class).getExcludedFiles(module, List.of(selectedFile));
-      if (!excludedFilesFromServer.isEmpty()) {
-        switchCard(FILE_DISABLED);
-        return;
-      }
+    if (module == null) {
+      switchCard(AUTO_TRIGGER_ENABLED);
+      return;
     }
-    switchCard(AUTO_TRIGGER_ENABLED);
+    getService(BackendService.class).getExcludedFiles(module, List.of(selectedFile))
+      .thenAccept(excludedFiles -> switchCardIfStillSelected(selectedFile, excludedFiles.isEmpty() ? AUTO_TRIGGER_ENABLED : FILE_DISABLED));
+  }
+
+  private void switchCardIfStillSelected(VirtualFile file, String cardName) {
+    runOnUiThread(project, () -> {
+      // The answer may come after another file got selected, it would then be outdated
+      if (file.equals(SonarLintUtils.getSelectedFile(project))) {
+        layout.show(panel, cardName);
+      }
+    });
   }
 
   private void createPanel() {
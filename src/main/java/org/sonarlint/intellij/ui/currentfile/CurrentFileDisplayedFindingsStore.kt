@@ -28,6 +28,7 @@ import org.sonarlint.intellij.ui.filter.FilteredFindings
 /**
  * Thread-safe snapshot of filtered findings shown in the Current File tool window tab.
  * Updated on the EDT from [CurrentFilePanel]; readable from any thread (e.g. external annotator on a background thread).
+ * Findings are grouped by file when the snapshot is set, as they are then looked up for each open file on every refresh.
  */
 @Service(Service.Level.PROJECT)
 class CurrentFileDisplayedFindingsStore(project: Project) {
@@ -35,15 +36,30 @@ class CurrentFileDisplayedFindingsStore(project: Project) {
     private val snapshot = AtomicReference(EMPTY)
 
     fun setSnapshot(findings: FilteredFindings) {
-        snapshot.set(findings)
+        snapshot.set(groupByFile(findings))
     }
 
     fun getFindingsForFile(file: VirtualFile): FilteredFindings {
-        return snapshot.get().getFindingsForFile(file)
+        return snapshot.get()[file] ?: NO_FINDINGS
+    }
+
+    private fun groupByFile(findings: FilteredFindings): Map<VirtualFile, FilteredFindings> {
+        val issuesPerFile = findings.issues.groupBy { it.file() }
+        val hotspotsPerFile = findings.hotspots.groupBy { it.file() }
+        val taintsPerFile = findings.taints.filter { it.file() != null }.groupBy { it.file()!! }
+        return (issuesPerFile.keys + hotspotsPerFile.keys + taintsPerFile.keys).associateWith { file ->
+            FilteredFindings(
+                issues = issuesPerFile[file] ?: emptyList(),
+                hotspots = hotspotsPerFile[file] ?: emptyList(),
+                taints = taintsPerFile[file] ?: emptyList(),
+                dependencyRisks = emptyList()
+            )
+        }
     }
 
     companion object {
-        private val EMPTY = FilteredFindings(emptyList(), emptyList(), emptyList(), emptyList())
+        private val EMPTY = emptyMap<VirtualFile, FilteredFindings>()
+        private val NO_FINDINGS = FilteredFindings(emptyList(), emptyList(), emptyList(), emptyList())
     }
 
 }
@@ -22,12 +22,13 @@ package org.sonarlint.intellij.ui.currentfile.tree
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import javax.swing.tree.DefaultTreeModel
-import org.sonarlint.intellij.ui.icons.SonarLintIcons.backgroundColorsByVulnerabilityProbability
-import org.sonarlint.intellij.ui.icons.SonarLintIcons.borderColorsByVulnerabilityProbability
-import org.sonarlint.intellij.ui.icons.SonarLintIcons.hotspotTypeWithProbability
+import org.sonarlint.intellij.finding.LiveFinding
 import org.sonarlint.intellij.finding.hotspot.LiveSecurityHotspot
 import org.sonarlint.intellij.ui.currentfile.SummaryUiModel
 import org.sonarlint.intellij.ui.filter.SortMode
+import org.sonarlint.intellij.ui.icons.SonarLintIcons.backgroundColorsByVulnerabilityProbability
+import org.sonarlint.intellij.ui.icons.SonarLintIcons.borderColorsByVulnerabilityProbability
+import org.sonarlint.intellij.ui.icons.SonarLintIcons.hotspotTypeWithProbability
 import org.sonarlint.intellij.ui.nodes.FileNode
 import org.sonarlint.intellij.ui.nodes.LiveSecurityHotspotNode
 import org.sonarlint.intellij.ui.nodes.SummaryNode
@@ -70,6 +71,8 @@ class SingleFileHotspotTreeModelBuilder(project: Project, isOldHotspots: Boolean
     override fun performUpdateModelWithScope(file: VirtualFile?, findings: List<LiveSecurityHotspot>, showFileNames: Boolean) {
         latestHotspots = findings.toMutableList()
         currentFile = file
+        // Node renderers check the validity of every hotspot, evaluate them all at once
+        LiveFinding.computeValidity(findings)
 
         summaryNode.removeAllChildren()
 
@@ -22,6 +22,7 @@ package org.sonarlint.intellij.ui.currentfile.tree
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import javax.swing.tree.DefaultTreeModel
+import org.sonarlint.intellij.finding.LiveFinding
 import org.sonarlint.intellij.finding.issue.LiveIssue
 import org.sonarlint.intellij.ui.currentfile.SummaryUiModel
 import org.sonarlint.intellij.ui.filter.SortMode
@@ -85,7 +86,7 @@ class SingleFileIssueTreeModelBuilder(project: Project, isOldIssue: Boolean) : S
 
         summaryNode.removeAllChildren()
 
-        val filteredIssues = findings.filter { accept(it) }
+        val filteredIssues = LiveFinding.filterValid(findings)
         val sortedIssues = when (sortMode) {
             SortMode.IMPACT -> filteredIssues.sortedWith(compareByDescending { it.getHighestImpact() })
             SortMode.DATE -> filteredIssues.sortedByDescending { it.introductionDate }
@@ -196,8 +197,4 @@ class SingleFileIssueTreeModelBuilder(project: Project, isOldIssue: Boolean) : S
         return null
     }
 
-    private fun accept(issue: LiveIssue): Boolean {
-        return issue.isValid()
-    }
-
 }
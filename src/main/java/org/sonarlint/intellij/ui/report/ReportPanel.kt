@@ -25,6 +25,7 @@ import com.intellij.openapi.actionSystem.ex.ActionUtil
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.ui.SimpleToolWindowPanel
 import com.intellij.openapi.ui.VerticalFlowLayout
+import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.ui.ScrollPaneFactory
 import com.intellij.ui.SimpleTextAttributes
 import com.intellij.ui.components.JBLabel
@@ -36,6 +37,7 @@ import com.intellij.util.ui.UIUtil
 import java.awt.BorderLayout
 import java.awt.Dimension
 import java.awt.FlowLayout
+import java.time.Instant
 import javax.swing.Box
 import javax.swing.JScrollPane
 import javax.swing.SwingConstants
@@ -47,6 +49,8 @@ import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.config.Settings
 import org.sonarlint.intellij.core.BackendService
 import org.sonarlint.intellij.finding.LiveFindings
+import org.sonarlint.intellij.finding.hotspot.LiveSecurityHotspot
+import org.sonarlint.intellij.finding.issue.LiveIssue
 import org.sonarlint.intellij.ui.FindingDetailsPanel
 import org.sonarlint.intellij.ui.FindingKind
 import org.sonarlint.intellij.ui.ToolWindowConstants.TOOL_WINDOW_ID
@@ -90,6 +94,11 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
     
     // State
     private var lastAnalysisResult: AnalysisResult? = null
+    // Findings streamed by the ongoing analyses, for files not part of a completed result yet
+    private val streamedIssues = LinkedHashMap<VirtualFile, Collection<LiveIssue>>()
+    private val streamedHotspots = LinkedHashMap<VirtualFile, Collection<LiveSecurityHotspot>>()
+    // Files of lastAnalysisResult, their streamed findings are outdated
+    private var completedFiles: Set<VirtualFile> = emptySet()
     private var filteredFindingsCache = FilteredFindings(emptyList(), emptyList(), emptyList(), emptyList())
     private var isLoadingState = false
     private var expectedModuleCount = 1
@@ -120,6 +129,87 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
         }
 
         lastAnalysisResult = analysisResult
+        completedFiles = analysisResult.analyzedFiles.toHashSet().apply { addAll(analysisResult.findings.filesInvolved) }
+        renderFindings()
+        
+        if ((expectedModuleCount > 1 && receivedModuleCount < expectedModuleCount) || hasStreamedFindings()) {
+            showAnalysisStatusPanel()
+        } else {
+            hideAnalysisStatusPanel()
+        }
+        
+        showFindingsState()
+    }
+
+    /**
+     * Appends the findings streamed by an ongoing analysis. They are displayed until the final results of their files
+     * are merged, files already part of a completed result are ignored.
+     */
+    fun appendIntermediateFindings(findings: LiveFindings) {
+        if (project.isDisposed) return
+
+        val newIssues = findings.issuesPerFile.filterKeys { it !in completedFiles }
+        val newHotspots = findings.securityHotspotsPerFile.filterKeys { it !in completedFiles }
+        if (newIssues.isEmpty() && newHotspots.isEmpty()) return
+
+        streamedIssues.putAll(newIssues)
+        streamedHotspots.putAll(newHotspots)
+        renderStreamedFiles(LiveFindings(newIssues, newHotspots))
+        showAnalysisStatusPanel()
+        showFindingsState()
+    }
+
+    /**
+     * Drops the streamed findings that will not be followed by final results, e.g. when an analysis failed.
+     */
+    fun discardStreamedFindings() {
+        if (project.isDisposed || !hasStreamedFindings()) return
+
+        streamedIssues.clear()
+        streamedHotspots.clear()
+        val result = lastAnalysisResult
+        if (result != null) {
+            updateFindings(result)
+            return
+        }
+        renderFindings()
+        if (expectedModuleCount > 1 && receivedModuleCount < expectedModuleCount) {
+            showAnalysisStatusPanel()
+        } else {
+            hideAnalysisStatusPanel()
+        }
+        showEmptyState()
+    }
+
+    /**
+     * Only the nodes of the streamed files are replaced: rebuilding the whole report on each batch would make streaming
+     * cost more as the report grows. Taint vulnerabilities of these files are displayed with their final results.
+     */
+    private fun renderStreamedFiles(findings: LiveFindings) {
+        val isFocusOnNewCode = getService(CleanAsYouCodeService::class.java).shouldFocusOnNewCode()
+        val streamedResult = AnalysisResult(null, findings, findings.filesInvolved, Instant.now())
+        detectAndUpdateMqrMode(streamedResult)
+        val filteredFindings = ReportFilteringUtils.convertFilteredFindingsToMap(
+            findingsFilter.filterAllFindings(streamedResult, displayManager.getCurrentFilterCriteria())
+        )
+        val split = if (isFocusOnNewCode) {
+            ReportFilteringUtils.splitFindingsByCodeAge(filteredFindings, emptyList())
+        } else {
+            ReportFilteringUtils.createNoFocusSplit(filteredFindings, emptyList())
+        }
+
+        treeManager.updateFiles(findings.issuesPerFile.keys, findings.securityHotspotsPerFile.keys, split)
+        treeManager.configureTreeVisibility(isFocusOnNewCode)
+
+        if (isLoadingState) {
+            hideLoadingPanel()
+            isLoadingState = false
+        }
+    }
+
+    private fun hasStreamedFindings() = streamedIssues.isNotEmpty() || streamedHotspots.isNotEmpty()
+
+    private fun renderFindings() {
         val isFocusOnNewCode = getService(CleanAsYouCodeService::class.java).shouldFocusOnNewCode()
 
         applyFiltering()
@@ -139,14 +229,6 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
             hideLoadingPanel()
             isLoadingState = false
         }
-        
-        if (expectedModuleCount > 1 && receivedModuleCount < expectedModuleCount) {
-            showAnalysisStatusPanel()
-        } else {
-            hideAnalysisStatusPanel()
-        }
-        
-        showFindingsState()
     }
 
     fun showFiltersPanel(show: Boolean) {
@@ -158,7 +240,12 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
     fun isFiltersPanelVisible(): Boolean = filtersPanel.isVisible
 
     fun refreshView() {
-        lastAnalysisResult?.let(::updateFindings) ?: showEmptyState()
+        val result = lastAnalysisResult
+        when {
+            result != null -> updateFindings(result)
+            hasStreamedFindings() -> renderFindings()
+            else -> showEmptyState()
+        }
     }
     
     /**
@@ -214,6 +301,11 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
      */
     fun mergeAnalysisResults(newAnalysisResult: AnalysisResult) {
         if (project.isDisposed) return
+
+        // The final results replace the findings streamed for the same files
+        val newlyCompletedFiles = newAnalysisResult.analyzedFiles.toSet() + newAnalysisResult.findings.filesInvolved
+        streamedIssues.keys.removeAll(newlyCompletedFiles)
+        streamedHotspots.keys.removeAll(newlyCompletedFiles)
         
         lastAnalysisResult = lastAnalysisResult?.let { existing ->
             val mergedFindings = newAnalysisResult.findings.merge(existing.findings)
@@ -363,11 +455,13 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
         lastAnalysisResult?.let { 
             applyFiltering()
             updateFindings(it)
+        } ?: run {
+            if (hasStreamedFindings()) renderFindings()
         }
     }
     
     private fun applyFiltering() {
-        val result = lastAnalysisResult
+        val result = displayedAnalysisResult()
         if (result == null) {
             filteredFindingsCache = FilteredFindings(emptyList(), emptyList(), emptyList(), emptyList())
             return
@@ -378,6 +472,17 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
         filteredFindingsCache = findingsFilter.filterAllFindings(result, filterCriteria)
     }
     
+    private fun displayedAnalysisResult(): AnalysisResult? {
+        val result = lastAnalysisResult
+        if (!hasStreamedFindings()) {
+            return result
+        }
+        val streamedFindings = LiveFindings(streamedIssues.toMap(), streamedHotspots.toMap())
+        return result?.let {
+            AnalysisResult(it.analysisId, it.findings.merge(streamedFindings), it.analyzedFiles + streamedFindings.filesInvolved, it.analysisDate)
+        } ?: AnalysisResult(null, streamedFindings, streamedFindings.filesInvolved, Instant.now())
+    }
+
     private fun detectAndUpdateMqrMode(analysisResult: AnalysisResult) {
         val rawFindings = analysisResult.findings
         val allIssues = rawFindings.issuesPerFile.values.flatten()
@@ -520,6 +625,8 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
             "Analysis ongoing • $remaining ${if (remaining == 1) "module" else "modules"} remaining"
         } else if (expectedModuleCount > 1) {
             "Finalizing results..."
+        } else if (hasStreamedFindings()) {
+            "Analysis ongoing"
         } else {
             "Preparing analysis..."
         }
@@ -609,6 +716,9 @@ class ReportPanel(private val project: Project) : SimpleToolWindowPanel(false, f
         analysisStatusLabel = null
         
         lastAnalysisResult = null
+        completedFiles = emptySet()
+        streamedIssues.clear()
+        streamedHotspots.clear()
     }
 
 }
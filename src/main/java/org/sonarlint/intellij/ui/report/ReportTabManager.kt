@@ -28,6 +28,7 @@ import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
 import java.util.concurrent.ConcurrentHashMap
 import org.sonarlint.intellij.analysis.AnalysisResult
+import org.sonarlint.intellij.finding.LiveFindings
 import org.sonarlint.intellij.ui.ToolWindowConstants
 
 /**
@@ -113,6 +114,25 @@ class ReportTabManager(private val project: Project) {
         }
     }
     
+    /**
+     * Appends the findings streamed by an ongoing analysis to the report tab of the batch, if still open.
+     */
+    @Synchronized
+    fun appendIntermediateFindings(batchId: String, findings: LiveFindings) {
+        batchToTabTitle[batchId]?.let { reportTabs[it] }?.appendIntermediateFindings(findings)
+    }
+
+    /**
+     * Records that an analysis of the batch failed: its streamed findings will not be followed by final results.
+     */
+    @Synchronized
+    fun analysisFailed(batchId: String, completedModules: Int, expectedModules: Int) {
+        batchToTabTitle[batchId]?.let { reportTabs[it] }?.let { panel ->
+            panel.updateAnalysisProgress(completedModules, expectedModules)
+            panel.discardStreamedFindings()
+        }
+    }
+
     /**
      * Creates a new report tab with the current timestamp and displays the analysis results.
      */
@@ -20,17 +20,20 @@
 package org.sonarlint.intellij.ui.report
 
 import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.ui.treeStructure.Tree
 import com.intellij.util.ui.tree.TreeUtil
 import java.awt.event.KeyAdapter
 import java.awt.event.KeyEvent
 import javax.swing.event.TreeSelectionEvent
+import javax.swing.tree.TreePath
 import javax.swing.tree.TreeSelectionModel
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
 import org.sonarlint.intellij.editor.EditorDecorator
 import org.sonarlint.intellij.finding.issue.vulnerabilities.LocalTaintVulnerability
 import org.sonarlint.intellij.ui.FindingDetailsPanel
 import org.sonarlint.intellij.ui.UiUtils.Companion.runOnUiThread
+import org.sonarlint.intellij.ui.nodes.FileNode
 import org.sonarlint.intellij.ui.nodes.IssueNode
 import org.sonarlint.intellij.ui.nodes.LiveSecurityHotspotNode
 import org.sonarlint.intellij.ui.report.tree.ReportIssueTreeModelBuilder
@@ -218,6 +221,24 @@ class ReportTreeManager(
         }
     }
     
+    /**
+     * Replaces the issue nodes of [issueFiles] and the hotspot nodes of [hotspotFiles] only, leaving the rest of the trees
+     * untouched: issues and hotspots of a file are not necessarily updated together. The inserted file nodes are
+     * expanded, as after a full update.
+     */
+    fun updateFiles(issueFiles: Set<VirtualFile>, hotspotFiles: Set<VirtualFile>, split: SplitFindings) {
+        runOnUiThread(project) {
+            expandFileNodes(issuesTree, issuesTreeBuilder.updateFiles(issueFiles, split.newIssues))
+            expandFileNodes(oldIssuesTree, oldIssuesTreeBuilder.updateFiles(issueFiles, split.oldIssues))
+            expandFileNodes(securityHotspotsTree, securityHotspotsTreeBuilder.updateFiles(hotspotFiles, split.newHotspots))
+            expandFileNodes(oldSecurityHotspotsTree, oldSecurityHotspotsTreeBuilder.updateFiles(hotspotFiles, split.oldHotspots))
+        }
+    }
+
+    private fun expandFileNodes(tree: Tree, fileNodes: List<FileNode>) {
+        fileNodes.forEach { tree.expandPath(TreePath(it.path)) }
+    }
+
     fun configureTreeVisibility(isFocusOnNewCode: Boolean) {
         runOnUiThread(project) {
             allTrees.forEach { it.showsRootHandles = true }
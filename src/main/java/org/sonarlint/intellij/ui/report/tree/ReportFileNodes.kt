@@ -0,0 +1,102 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.ui.report.tree
+
+import com.intellij.openapi.vfs.VirtualFile
+import javax.swing.tree.DefaultTreeModel
+import org.sonarlint.intellij.finding.LiveFinding
+import org.sonarlint.intellij.ui.nodes.FileNode
+import org.sonarlint.intellij.ui.nodes.SummaryNode
+
+/**
+ * The file nodes of a report tree, kept sorted by [sortKey]. They can be replaced all at once, or file by file while
+ * findings are streamed.
+ */
+class ReportFileNodes<T : LiveFinding>(
+    private val model: DefaultTreeModel,
+    private val summaryNode: SummaryNode,
+    private val sortKey: (VirtualFile) -> String,
+    private val createFileNode: (VirtualFile, Collection<T>) -> FileNode,
+) {
+
+    private val nodesByFile = HashMap<VirtualFile, FileNode>()
+
+    var findingCount = 0
+        private set
+
+    val fileCount: Int
+        get() = nodesByFile.size
+
+    fun replaceAll(findingsByFile: Map<VirtualFile, Collection<T>>) {
+        clear()
+        findingsByFile.entries.sortedBy { sortKey(it.key) }.forEach { (file, fileFindings) ->
+            summaryNode.add(newFileNode(file, fileFindings))
+            findingCount += fileFindings.size
+        }
+    }
+
+    /**
+     * Replaces the nodes of [files] with their new findings, leaving the nodes of the other files untouched.
+     *
+     * @return the file nodes that were inserted
+     */
+    fun updateFiles(files: Set<VirtualFile>, findings: Map<VirtualFile, Collection<T>>): List<FileNode> {
+        files.forEach { file -> nodesByFile.remove(file)?.let(::removeFileNode) }
+        return findings.filter { (file, fileFindings) -> file in files && fileFindings.isNotEmpty() }
+            .map { (file, fileFindings) ->
+                LiveFinding.computeValidity(fileFindings)
+                newFileNode(file, fileFindings).also(::insertFileNode)
+            }
+    }
+
+    fun clear() {
+        nodesByFile.clear()
+        findingCount = 0
+        summaryNode.removeAllChildren()
+    }
+
+    private fun newFileNode(file: VirtualFile, findings: Collection<T>) = createFileNode(file, findings).also { nodesByFile[file] = it }
+
+    private fun removeFileNode(fileNode: FileNode) {
+        val index = summaryNode.getIndex(fileNode)
+        if (index >= 0) {
+            summaryNode.remove(index)
+            findingCount -= fileNode.childCount
+            model.nodesWereRemoved(summaryNode, intArrayOf(index), arrayOf(fileNode))
+        }
+    }
+
+    private fun insertFileNode(fileNode: FileNode) {
+        val key = sortKey(fileNode.file())
+        var low = 0
+        var high = summaryNode.childCount
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (sortKey((summaryNode.getChildAt(middle) as FileNode).file()) <= key) {
+                low = middle + 1
+            } else {
+                high = middle
+            }
+        }
+        findingCount += fileNode.childCount
+        model.insertNodeInto(fileNode, summaryNode, low)
+    }
+
+}
@@ -23,6 +23,7 @@ import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import javax.swing.tree.DefaultTreeModel
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
+import org.sonarlint.intellij.finding.LiveFinding
 import org.sonarlint.intellij.finding.issue.LiveIssue
 import org.sonarlint.intellij.ui.filter.FilterSettingsService
 import org.sonarlint.intellij.ui.filter.SortMode
@@ -39,59 +40,64 @@ class ReportIssueTreeModelBuilder(project: Project, isOld: Boolean) {
     private val summaryNode: SummaryNode
     private val treeSummary = FindingTreeSummary(project, TreeContentKind.ISSUES, isOld)
     private var latestIssues = mutableListOf<LiveIssue>()
+    private val fileNodes: ReportFileNodes<LiveIssue>
 
     init {
         summaryNode = SummaryNode(treeSummary)
         model = DefaultTreeModel(summaryNode)
         model.setRoot(summaryNode)
+        fileNodes = ReportFileNodes(model, summaryNode, { it.name }, ::createFileNode)
     }
 
     fun updateModel(findings: Map<VirtualFile, Collection<LiveIssue>>) {
         // Flatten all issues from all files
         val allIssues = findings.values.flatten()
+        // Node renderers check the validity of every finding, evaluate them all at once
+        LiveFinding.computeValidity(allIssues)
         latestIssues = allIssues.toMutableList()
 
         // Clear existing model completely
         clear()
 
-        // Group by file first, then sort within each file
-        val issuesByFile = allIssues.groupBy { it.file() }
-        
-        for ((file, fileIssues) in issuesByFile) {
-            val sortedFileIssues = when (sortMode) {
-                SortMode.IMPACT -> fileIssues.sortedWith(compareByDescending { it.getHighestImpact() })
-                SortMode.DATE -> fileIssues.sortedByDescending { it.introductionDate }
-                SortMode.RULE_KEY -> fileIssues.sortedBy { it.getRuleKey() }
-                SortMode.LINE_NUMBER -> fileIssues.sortedBy { it.validTextRange?.startOffset ?: Int.MAX_VALUE }
-            }
+        fileNodes.replaceAll(allIssues.groupBy { it.file() })
+        treeSummary.refresh(fileNodes.fileCount, fileNodes.findingCount)
+        model.nodeStructureChanged(summaryNode)
+    }
 
-            // Create file node and add sorted issues as children
-            val fileNode = FileNode(file, false)
-            sortedFileIssues.forEach { issue ->
-                fileNode.add(IssueNode(issue))
-            }
-            
-            // Add file node to summary - use simple add instead of insertFileNode to avoid conflicts
-            summaryNode.add(fileNode)
-        }
+    /**
+     * Replaces the nodes of [files] with their new issues, leaving the nodes of the other files untouched. Cheaper than
+     * [updateModel] when few files change in a large tree, e.g. while findings are streamed.
+     *
+     * @return the file nodes that were inserted
+     */
+    fun updateFiles(files: Set<VirtualFile>, findings: Map<VirtualFile, Collection<LiveIssue>>): List<FileNode> {
+        val insertedNodes = fileNodes.updateFiles(files, findings)
+        treeSummary.refresh(fileNodes.fileCount, fileNodes.findingCount)
+        model.nodeChanged(summaryNode)
+        return insertedNodes
+    }
 
-        // Sort children after all nodes are added
-        if (summaryNode.childCount > 0) {
-            val children = (0 until summaryNode.childCount).map { summaryNode.getChildAt(it) as FileNode }
-            val sortedChildren = children.sortedWith(compareBy { it.file().name })
-            summaryNode.removeAllChildren()
-            sortedChildren.forEach { summaryNode.add(it) }
+    private fun createFileNode(file: VirtualFile, fileIssues: Collection<LiveIssue>): FileNode {
+        val sortedFileIssues = when (sortMode) {
+            SortMode.IMPACT -> fileIssues.sortedWith(compareByDescending { it.getHighestImpact() })
+            SortMode.DATE -> fileIssues.sortedByDescending { it.introductionDate }
+            SortMode.RULE_KEY -> fileIssues.sortedBy { it.getRuleKey() }
+            SortMode.LINE_NUMBER -> fileIssues.sortedBy { it.validTextRange?.startOffset ?: Int.MAX_VALUE }
         }
 
-        treeSummary.refresh(issuesByFile.size, allIssues.size)
-        model.nodeStructureChanged(summaryNode)
+        // Create file node and add sorted issues as children
+        val fileNode = FileNode(file, false)
+        sortedFileIssues.forEach { issue ->
+            fileNode.add(IssueNode(issue))
+        }
+        return fileNode
     }
 
     fun isEmpty(): Boolean = latestIssues.isEmpty()
 
     fun clear() {
         latestIssues.clear()
-        summaryNode.removeAllChildren()
+        fileNodes.clear()
         treeSummary.refresh(0, 0)
         model.nodeStructureChanged(summaryNode)
     }
@@ -23,6 +23,7 @@ import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import javax.swing.tree.DefaultTreeModel
 import org.sonarlint.intellij.common.util.SonarLintUtils.getService
+import org.sonarlint.intellij.finding.LiveFinding
 import org.sonarlint.intellij.finding.hotspot.LiveSecurityHotspot
 import org.sonarlint.intellij.ui.filter.FilterSettingsService
 import org.sonarlint.intellij.ui.filter.SortMode
@@ -39,59 +40,64 @@ class ReportSecurityHotspotTreeModelBuilder(project: Project, isOld: Boolean) {
     private val summaryNode: SummaryNode
     private val treeSummary = FindingTreeSummary(project, TreeContentKind.SECURITY_HOTSPOTS, isOld)
     private var latestHotspots = mutableListOf<LiveSecurityHotspot>()
+    private val fileNodes: ReportFileNodes<LiveSecurityHotspot>
 
     init {
         summaryNode = SummaryNode(treeSummary)
         model = DefaultTreeModel(summaryNode)
         model.setRoot(summaryNode)
+        fileNodes = ReportFileNodes(model, summaryNode, { it.name }, ::createFileNode)
     }
 
     fun updateModel(findings: Map<VirtualFile, Collection<LiveSecurityHotspot>>) {
         // Flatten all hotspots from all files
         val allHotspots = findings.values.flatten()
+        // Node renderers check the validity of every finding, evaluate them all at once
+        LiveFinding.computeValidity(allHotspots)
         latestHotspots = allHotspots.toMutableList()
 
         // Clear existing model completely
         clear()
 
-        // Group by file first, then sort within each file
-        val hotspotsByFile = allHotspots.groupBy { it.file() }
-        
-        for ((file, fileHotspots) in hotspotsByFile) {
-            val sortedFileHotspots = when (sortMode) {
-                SortMode.IMPACT -> fileHotspots.sortedWith(compareByDescending { it.vulnerabilityProbability })
-                SortMode.DATE -> fileHotspots.sortedByDescending { it.introductionDate }
-                SortMode.RULE_KEY -> fileHotspots.sortedBy { it.getRuleKey() }
-                SortMode.LINE_NUMBER -> fileHotspots.sortedBy { it.validTextRange?.startOffset ?: Int.MAX_VALUE }
-            }
+        fileNodes.replaceAll(allHotspots.groupBy { it.file() })
+        treeSummary.refresh(fileNodes.fileCount, fileNodes.findingCount)
+        model.nodeStructureChanged(summaryNode)
+    }
 
-            // Create file node and add sorted hotspots as children
-            val fileNode = FileNode(file, true)
-            sortedFileHotspots.forEach { hotspot ->
-                fileNode.add(LiveSecurityHotspotNode(hotspot, true))
-            }
-            
-            // Add file node to summary - use simple add instead of insertFileNode to avoid conflicts
-            summaryNode.add(fileNode)
-        }
+    /**
+     * Replaces the nodes of [files] with their new hotspots, leaving the nodes of the other files untouched. Cheaper than
+     * [updateModel] when few files change in a large tree, e.g. while findings are streamed.
+     *
+     * @return the file nodes that were inserted
+     */
+    fun updateFiles(files: Set<VirtualFile>, findings: Map<VirtualFile, Collection<LiveSecurityHotspot>>): List<FileNode> {
+        val insertedNodes = fileNodes.updateFiles(files, findings)
+        treeSummary.refresh(fileNodes.fileCount, fileNodes.findingCount)
+        model.nodeChanged(summaryNode)
+        return insertedNodes
+    }
 
-        // Sort children after all nodes are added
-        if (summaryNode.childCount > 0) {
-            val children = (0 until summaryNode.childCount).map { summaryNode.getChildAt(it) as FileNode }
-            val sortedChildren = children.sortedWith(compareBy { it.file().name })
-            summaryNode.removeAllChildren()
-            sortedChildren.forEach { summaryNode.add(it) }
+    private fun createFileNode(file: VirtualFile, fileHotspots: Collection<LiveSecurityHotspot>): FileNode {
+        val sortedFileHotspots = when (sortMode) {
+            SortMode.IMPACT -> fileHotspots.sortedWith(compareByDescending { it.vulnerabilityProbability })
+            SortMode.DATE -> fileHotspots.sortedByDescending { it.introductionDate }
+            SortMode.RULE_KEY -> fileHotspots.sortedBy { it.getRuleKey() }
+            SortMode.LINE_NUMBER -> fileHotspots.sortedBy { it.validTextRange?.startOffset ?: Int.MAX_VALUE }
         }
 
-        treeSummary.refresh(hotspotsByFile.size, allHotspots.size)
-        model.nodeStructureChanged(summaryNode)
+        // Create file node and add sorted hotspots as children
+        val fileNode = FileNode(file, true)
+        sortedFileHotspots.forEach { hotspot ->
+            fileNode.add(LiveSecurityHotspotNode(hotspot, true))
+        }
+        return fileNode
     }
 
     fun isEmpty(): Boolean = latestHotspots.isEmpty()
 
     fun clear() {
         latestHotspots.clear()
-        summaryNode.removeAllChildren()
+        fileNodes.clear()
         treeSummary.refresh(0, 0)
         model.nodeStructureChanged(summaryNode)
     }
@@ -55,20 +55,17 @@ class SonarLintTrafficLightAction(private val editor: Editor) : AbstractSonarAct
             val isAlive = getService(BackendService::class.java).isAlive()
             val presentation = e.presentation
             val isFocusOnNewCode = getService(project, CleanAsYouCodeService::class.java).shouldFocusOnNewCode()
-            val relevantIssues = getService(project, AnalysisSubmitter::class.java).onTheFlyFindingsHolder.getIssuesForFile(file)
-                .filter { !it.isResolved() && (!isFocusOnNewCode || it.isOnNewCode()) }
-            val relevantSecurityHotspots =
-                getService(project, AnalysisSubmitter::class.java).onTheFlyFindingsHolder.getSecurityHotspotsForFile(file)
-                    .filter { !it.isResolved() && (!isFocusOnNewCode || it.isOnNewCode()) }
+            val onTheFlyFindingsHolder = getService(project, AnalysisSubmitter::class.java).onTheFlyFindingsHolder
+            val relevantIssuesCount = onTheFlyFindingsHolder.getIssuesCountForFile(file).relevant(isFocusOnNewCode)
+            val relevantSecurityHotspotsCount = onTheFlyFindingsHolder.getSecurityHotspotsCountForFile(file).relevant(isFocusOnNewCode)
             val relevantTaintVulnerabilitiesCount =
-                getService(project, TaintVulnerabilitiesCache::class.java).getTaintVulnerabilitiesForFile(file)
-                    .filter { !it.isResolved() && (!isFocusOnNewCode || it.isOnNewCode()) }
+                getService(project, TaintVulnerabilitiesCache::class.java).getTaintVulnerabilitiesCountForFile(file).relevant(isFocusOnNewCode)
             val model =
                 SonarLintDashboardModel(
                     isAlive,
-                    relevantIssues.size,
-                    relevantSecurityHotspots.size,
-                    relevantTaintVulnerabilitiesCount.size,
+                    relevantIssuesCount,
+                    relevantSecurityHotspotsCount,
+                    relevantTaintVulnerabilitiesCount,
                     isFocusOnNewCode
                 )
             presentation.putClientProperty(DASHBOARD_MODEL, model)
@@ -33,12 +33,18 @@ import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertDoesNotThrow
 import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
 import org.mockito.Mockito.verify
+import org.mockito.kotlin.any
 import org.mockito.kotlin.argThat
 import org.mockito.kotlin.eq
+import org.mockito.kotlin.whenever
 import org.sonarlint.intellij.actions.OpenTrackedLinkAction
 import org.sonarlint.intellij.actions.RestartBackendNotificationAction
 import org.sonarlint.intellij.actions.SonarLintToolWindow
+import org.sonarlint.intellij.analysis.AnalysisSubmitter
+import org.sonarlint.intellij.analysis.OnTheFlyFindingsHolder
+import org.sonarlint.intellij.common.ui.SonarLintConsole
 import org.sonarlint.intellij.config.global.ServerConnection
 import org.sonarlint.intellij.core.BackendService
 import org.sonarlint.intellij.finding.sca.DependencyRisksCache
@@ -55,6 +61,9 @@ import org.sonarsource.sonarlint.core.rpc.protocol.backend.config.binding.Bindin
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.plugin.PluginStateDto
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.plugin.PluginStatusDto
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.tracking.DependencyRiskDto
+import org.sonarsource.sonarlint.core.rpc.protocol.client.issue.RaisedIssueDto
+import org.sonarsource.sonarlint.core.rpc.protocol.client.log.LogLevel
+import org.sonarsource.sonarlint.core.rpc.protocol.client.log.LogParams
 import org.sonarsource.sonarlint.core.rpc.protocol.client.message.MessageActionItem
 import org.sonarsource.sonarlint.core.rpc.protocol.client.message.MessageType
 import org.sonarsource.sonarlint.core.rpc.protocol.client.plugin.DidSkipLoadingPluginParams
@@ -555,4 +564,59 @@ class SonarLintIntelliJClientTests : AbstractSonarLintLightTests() {
         future.get(5, TimeUnit.SECONDS)
     }
 
+    @Test
+    fun should_drop_debug_logs_of_a_project_whose_console_does_not_show_them() {
+        val console = mock(SonarLintConsole::class.java)
+        whenever(console.debugEnabled()).thenReturn(false)
+        replaceProjectService(SonarLintConsole::class.java, console)
+        val receivedDebugLogs = client.getReceivedLogsCountByLevel().getValue(LogLevel.DEBUG)
+
+        client.log(aLog(LogLevel.DEBUG))
+        client.log(aLog(LogLevel.INFO))
+
+        verify(console, never()).debug(any())
+        verify(console).info(any())
+        assertThat(client.getReceivedLogsCountByLevel().getValue(LogLevel.DEBUG)).isEqualTo(receivedDebugLogs + 1)
+    }
+
+    @Test
+    fun should_show_debug_logs_of_a_project_whose_console_shows_them() {
+        val console = mock(SonarLintConsole::class.java)
+        whenever(console.debugEnabled()).thenReturn(true)
+        replaceProjectService(SonarLintConsole::class.java, console)
+
+        client.log(aLog(LogLevel.DEBUG))
+
+        verify(console).debug(any())
+    }
+
+    @Test
+    fun should_display_results_of_backend_analyses_in_publication_order() {
+        val backendService = mock(BackendService::class.java)
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(CompletableFuture.completedFuture("Since 30 days"))
+        replaceApplicationService(BackendService::class.java, backendService)
+        val findingsHolder = mock(OnTheFlyFindingsHolder::class.java)
+        val analysisSubmitter = mock(AnalysisSubmitter::class.java)
+        whenever(analysisSubmitter.onTheFlyFindingsHolder).thenReturn(findingsHolder)
+        replaceProjectService(AnalysisSubmitter::class.java, analysisSubmitter)
+        val fileUri = Paths.get("/project/Foo.java").toUri()
+        val newerIssues = mapOf(fileUri to listOf(mock(RaisedIssueDto::class.java)))
+        val olderIssues = mapOf(fileUri to listOf(mock(RaisedIssueDto::class.java)))
+
+        // The analysis of the latest content may publish before a slower analysis of older content
+        client.raiseIssues(BackendService.moduleId(module), newerIssues, true, UUID.randomUUID())
+        client.raiseIssues(BackendService.moduleId(module), olderIssues, true, UUID.randomUUID())
+
+        verify(findingsHolder).updateViewsWithNewIssues(module, newerIssues, true)
+        verify(findingsHolder).updateViewsWithNewIssues(module, olderIssues, true)
+        verify(backendService, never()).cancelTask(any())
+    }
+
+    private fun aLog(level: LogLevel): LogParams {
+        val params = mock(LogParams::class.java)
+        whenever(params.level).thenReturn(level)
+        whenever(params.configScopeId).thenReturn(projectBackendId)
+        return params
+    }
+
 }
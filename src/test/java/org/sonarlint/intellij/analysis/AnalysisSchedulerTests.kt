@@ -0,0 +1,113 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.analysis
+
+import java.util.UUID
+import java.util.concurrent.CompletableFuture
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.sonarlint.intellij.analysis.AnalysisScheduler.Priority
+
+class AnalysisSchedulerTests {
+
+    private val scheduler = AnalysisScheduler()
+    private val startedAnalyses = mutableListOf<String>()
+
+    @Test
+    fun should_start_on_the_fly_analyses_right_away() {
+        submit(Priority.ON_THE_FLY, "first")
+        submit(Priority.ON_THE_FLY, "second")
+        submit(Priority.ON_THE_FLY, "third")
+
+        assertThat(startedAnalyses).containsExactly("first", "second", "third")
+    }
+
+    @Test
+    fun should_limit_concurrent_report_analyses() {
+        val firstId = submit(Priority.REPORT, "first")
+        submit(Priority.REPORT, "second")
+        submit(Priority.REPORT, "third")
+
+        assertThat(startedAnalyses).containsExactly("first", "second")
+        assertThat(scheduler.getQueuedRequestsCount()).isEqualTo(1)
+
+        scheduler.analysisFinished(firstId)
+
+        assertThat(startedAnalyses).containsExactly("first", "second", "third")
+    }
+
+    @Test
+    fun should_hold_report_analyses_while_on_the_fly_analyses_run() {
+        val onTheFlyId = submit(Priority.ON_THE_FLY, "on the fly")
+        submit(Priority.REPORT, "report")
+
+        assertThat(startedAnalyses).containsExactly("on the fly")
+
+        scheduler.analysisFinished(onTheFlyId)
+
+        assertThat(startedAnalyses).containsExactly("on the fly", "report")
+    }
+
+    @Test
+    fun should_release_slot_when_nothing_is_analyzed() {
+        scheduler.submit(Priority.REPORT) { CompletableFuture.completedFuture(null) }
+        scheduler.submit(Priority.REPORT) { CompletableFuture.failedFuture(IllegalStateException("boom")) }
+        submit(Priority.REPORT, "report")
+
+        assertThat(startedAnalyses).containsExactly("report")
+    }
+
+    @Test
+    fun should_drop_superseded_queued_requests() {
+        submit(Priority.REPORT, "first")
+        submit(Priority.REPORT, "second")
+        var superseded = false
+        submit(Priority.REPORT, "old", "key") { superseded = true }
+
+        submit(Priority.REPORT, "new", "key")
+
+        assertThat(superseded).isTrue()
+        assertThat(scheduler.getQueuedRequestsCount()).isEqualTo(1)
+    }
+
+    @Test
+    fun should_release_slot_of_analysis_finished_before_its_start_is_acknowledged() {
+        val analysisId = UUID.randomUUID()
+        val response = CompletableFuture<UUID?>()
+        scheduler.submit(Priority.REPORT) { response }
+        submit(Priority.REPORT, "second")
+        submit(Priority.REPORT, "third")
+
+        scheduler.analysisFinished(analysisId)
+        response.complete(analysisId)
+
+        assertThat(startedAnalyses).containsExactly("second", "third")
+    }
+
+    private fun submit(priority: Priority, name: String, supersedeKey: Any? = null, onSuperseded: () -> Unit = {}): UUID {
+        val analysisId = UUID.randomUUID()
+        scheduler.submit(priority, supersedeKey, onSuperseded) {
+            startedAnalyses.add(name)
+            CompletableFuture.completedFuture(analysisId)
+        }
+        return analysisId
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.analysis
+
+import java.util.UUID
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.after
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.timeout
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+
+class AnalysisStateTests : AbstractSonarLintLightTests() {
+
+    private val callback = mock<AnalysisCallback>()
+
+    @Test
+    fun should_complete_once_when_final_issues_are_received() {
+        val analysisId = UUID.randomUUID()
+        val state = AnalysisState(analysisId, callback, module)
+
+        state.addRawIssues(analysisId, emptyMap(), false)
+        state.addRawIssues(analysisId, emptyMap(), false)
+
+        verify(callback, timeout(2000)).onSuccess(any())
+        verify(callback, after(200).times(1)).onSuccess(any())
+        assertThat(state.isAnalysisFinished()).isTrue()
+    }
+
+    @Test
+    fun should_publish_intermediate_results_until_final_ones() {
+        val analysisId = UUID.randomUUID()
+        val state = AnalysisState(analysisId, callback, module)
+
+        state.addRawIssues(analysisId, emptyMap(), true)
+
+        verify(callback, timeout(2000)).onIntermediateResult(any())
+        verify(callback, never()).onSuccess(any())
+        assertThat(state.isAnalysisFinished()).isFalse()
+    }
+
+    @Test
+    fun should_report_timings_of_received_results() {
+        val analysisId = UUID.randomUUID()
+        val state = AnalysisState(analysisId, callback, module)
+        assertThat(state.getTimings().firstResultMs).isNull()
+
+        state.addRawIssues(analysisId, emptyMap(), false)
+
+        verify(callback, timeout(2000)).onSuccess(any())
+        val timings = state.getTimings()
+        assertThat(timings.firstResultMs).isNotNull()
+        assertThat(timings.lastResultMs).isGreaterThanOrEqualTo(timings.firstResultMs)
+    }
+
+}
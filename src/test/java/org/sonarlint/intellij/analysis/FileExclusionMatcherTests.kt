@@ -0,0 +1,107 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.analysis
+
+import java.nio.file.FileSystems
+import java.nio.file.Paths
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.condition.DisabledOnOs
+import org.junit.jupiter.api.condition.OS
+
+class FileExclusionMatcherTests {
+
+    @Test
+    fun should_match_file_and_directory_exclusions() {
+        val matcher = FileExclusionMatcher(setOf("**/home/user/project/src/Foo.java", "**/home/user/project/build/**"), false)
+
+        assertThat(matcher.matches("/home/user/project/src/Foo.java")).isTrue()
+        assertThat(matcher.matches("/home/user/project/build/classes/Foo.class")).isTrue()
+        assertThat(matcher.matches("/home/user/project/src/Bar.java")).isFalse()
+        assertThat(matcher.matches("/home/user/project/build")).isFalse()
+        assertThat(matcher.matches("/home/user/project/buildSrc/Foo.kt")).isFalse()
+    }
+
+    @Test
+    fun should_match_wildcards_within_a_segment() {
+        val matcher = FileExclusionMatcher(setOf("**/*Test.java", "**/gen?/**"), false)
+
+        assertThat(matcher.matches("/project/src/FooTest.java")).isTrue()
+        assertThat(matcher.matches("/project/src/FooTest.kt")).isFalse()
+        assertThat(matcher.matches("/project/gen1/Foo.java")).isTrue()
+        assertThat(matcher.matches("/project/gen/Foo.java")).isFalse()
+    }
+
+    @Test
+    fun should_fall_back_to_path_matcher_for_advanced_syntax() {
+        val matcher = FileExclusionMatcher(setOf("**/*.{js,ts}", "**/[a-c]*.py"), false)
+
+        assertThat(matcher.matches("/project/src/index.ts")).isTrue()
+        assertThat(matcher.matches("/project/src/index.tsx")).isFalse()
+        assertThat(matcher.matches("/project/src/bar.py")).isTrue()
+        assertThat(matcher.matches("/project/src/foo.py")).isFalse()
+    }
+
+    @Test
+    fun should_ignore_case_when_requested() {
+        val matcher = FileExclusionMatcher(setOf("**/Project/*.JAVA"), true)
+
+        assertThat(matcher.matches("/project/Foo.java")).isTrue()
+    }
+
+    @Test
+    fun should_not_match_anything_without_patterns() {
+        val matcher = FileExclusionMatcher(emptySet(), false)
+
+        assertThat(matcher.isEmpty).isTrue()
+        assertThat(matcher.matches("/project/Foo.java")).isFalse()
+    }
+
+    @Test
+    fun should_ignore_invalid_patterns() {
+        val matcher = FileExclusionMatcher(setOf("**/{unclosed", "**/*.md"), false)
+
+        assertThat(matcher.matches("/project/README.md")).isTrue()
+        assertThat(matcher.matches("/project/{unclosed")).isFalse()
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    fun should_behave_like_nio_path_matcher() {
+        val patterns = listOf(
+            "**", "*", "**/*", "**/src/**", "src/**", "**/src/*.java", "**/a/**/b/*.kt", "**/*.min.js", "/project/*/Foo?.java",
+            "**/project/build/**", "**/project/src/Foo.java", "project/**/Foo.java",
+        )
+        val paths = listOf(
+            "", "/", "/project", "/project/Foo1.java", "/project/src/Foo.java", "/project/src/main/Foo.java", "src/Foo.java",
+            "src", "/project/build/out.txt", "/project/build", "/x/a/b/Baz.kt", "/x/a/y/z/b/Baz.kt", "/x/a/b/c/Baz.kt",
+            "/web/lib.min.js", "/web/lib.js", "project/src/Foo.java",
+        )
+
+        patterns.forEach { pattern ->
+            val matcher = FileExclusionMatcher(setOf(pattern), false)
+            val expected = FileSystems.getDefault().getPathMatcher("glob:$pattern")
+            paths.forEach { path ->
+                assertThat(matcher.matches(path)).describedAs("'$pattern' on '$path'").isEqualTo(expected.matches(Paths.get(path)))
+            }
+        }
+    }
+
+}
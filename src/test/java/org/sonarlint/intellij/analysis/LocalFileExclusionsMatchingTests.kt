@@ -0,0 +1,45 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.analysis
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.common.util.SonarLintUtils.getService
+import org.sonarlint.intellij.util.SonarLintAppUtils.getRelativePathForAnalysis
+
+class LocalFileExclusionsMatchingTests : AbstractSonarLintLightTests() {
+
+    @Test
+    fun `should match exclusions against the path relative to the module`() {
+        val file = createTestFile("sub/Foo.java", "class Foo {}")
+        val relativePath = getRelativePathForAnalysis(module, file)!!
+        // Name of a directory above the module, part of the absolute path only
+        val ancestorDirectory = file.path.removeSuffix(relativePath).trimEnd('/').substringAfterLast('/')
+        assertThat(ancestorDirectory).isNotBlank()
+
+        setProjectLevelExclusions(listOf("GLOB:**/$ancestorDirectory/**"))
+        assertThat(getService(project, LocalFileExclusions::class.java).isExcluded(module, file)).isFalse()
+
+        setProjectLevelExclusions(listOf("GLOB:sub/**"))
+        assertThat(getService(project, LocalFileExclusions::class.java).isExcluded(module, file)).isTrue()
+    }
+
+}
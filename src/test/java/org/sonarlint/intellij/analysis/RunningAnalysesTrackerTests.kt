@@ -20,10 +20,12 @@
 package org.sonarlint.intellij.analysis
 
 import java.util.UUID
+import java.util.concurrent.CompletableFuture
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
 import org.mockito.Mockito.verify
 import org.mockito.Mockito.`when`
 import org.sonarlint.intellij.AbstractSonarLintLightTests
@@ -96,4 +98,92 @@ class RunningAnalysesTrackerTests : AbstractSonarLintLightTests() {
         verify(backendService).cancelTask(id2.toString())
         assertThat(tracker.isEmpty()).isTrue()
     }
-} 
+
+    @Test
+    fun `should release scheduling slot of cancelled analysis`() {
+        val scheduler = AnalysisScheduler()
+        replaceProjectService(AnalysisScheduler::class.java, scheduler)
+        val startedAnalyses = mutableListOf<String>()
+        val firstId = submitReport(scheduler, startedAnalyses, "first")
+        submitReport(scheduler, startedAnalyses, "second")
+
+        tracker.cancel(firstId)
+        submitReport(scheduler, startedAnalyses, "first again")
+
+        verify(backendService).cancelTask(firstId.toString())
+        assertThat(tracker.getById(firstId)).isNull()
+        assertThat(startedAnalyses).containsExactly("first", "second", "first again")
+        assertThat(scheduler.getQueuedRequestsCount()).isZero()
+    }
+
+    @Test
+    fun `should release scheduling slots of analyses lost when the backend exits`() {
+        val scheduler = AnalysisScheduler()
+        replaceProjectService(AnalysisScheduler::class.java, scheduler)
+        val startedAnalyses = mutableListOf<String>()
+        submit(scheduler, startedAnalyses, "on the fly", AnalysisScheduler.Priority.ON_THE_FLY)
+        submitReport(scheduler, startedAnalyses, "report")
+
+        tracker.backendExited()
+
+        assertThat(startedAnalyses).containsExactly("on the fly", "report")
+    }
+
+    @Test
+    fun `should cancel running on-the-fly analysis superseded by a newer one`() {
+        val file = createTestFile("Foo.java", "class Foo {}")
+        val older = AnalysisState(UUID.randomUUID(), mock(AnalysisCallback::class.java), module, setOf(file), true)
+        val newer = AnalysisState(UUID.randomUUID(), mock(AnalysisCallback::class.java), module, setOf(file), true)
+
+        tracker.track(older)
+        tracker.track(newer)
+
+        verify(backendService).cancelTask(older.id.toString())
+        assertThat(tracker.getById(older.id)).isNull()
+        assertThat(tracker.isSuperseded(older.id)).isTrue()
+        assertThat(tracker.getById(newer.id)).isEqualTo(newer)
+    }
+
+    @Test
+    fun `should not cancel analysis covering more files than the newer one`() {
+        val file = createTestFile("Foo.java", "class Foo {}")
+        val otherFile = createTestFile("Bar.java", "class Bar {}")
+        val older = AnalysisState(UUID.randomUUID(), mock(AnalysisCallback::class.java), module, setOf(file, otherFile), true)
+        val newer = AnalysisState(UUID.randomUUID(), mock(AnalysisCallback::class.java), module, setOf(file), true)
+
+        tracker.track(older)
+        tracker.track(newer)
+
+        verify(backendService, never()).cancelTask(older.id.toString())
+        assertThat(tracker.getById(older.id)).isEqualTo(older)
+    }
+
+    @Test
+    fun `should not publish results older than the latest published ones`() {
+        val file = createTestFile("Foo.java", "class Foo {}")
+        val otherFile = createTestFile("Bar.java", "class Bar {}")
+        val older = AnalysisState(UUID.randomUUID(), mock(AnalysisCallback::class.java), module, setOf(file, otherFile), true)
+        val newer = AnalysisState(UUID.randomUUID(), mock(AnalysisCallback::class.java), module, setOf(file), true)
+        tracker.track(older)
+        tracker.track(newer)
+
+        assertThat(tracker.publishResults(newer, setOf(file))).isEmpty()
+        assertThat(tracker.publishResults(older, setOf(file, otherFile))).containsExactly(file)
+    }
+
+    private fun submitReport(scheduler: AnalysisScheduler, startedAnalyses: MutableList<String>, name: String) =
+        submit(scheduler, startedAnalyses, name, AnalysisScheduler.Priority.REPORT)
+
+    private fun submit(scheduler: AnalysisScheduler, startedAnalyses: MutableList<String>, name: String, priority: AnalysisScheduler.Priority): UUID {
+        val analysisId = UUID.randomUUID()
+        scheduler.submit(priority) {
+            startedAnalyses.add(name)
+            val state = mock(AnalysisState::class.java)
+            `when`(state.id).thenReturn(analysisId)
+            tracker.track(state)
+            CompletableFuture.completedFuture(analysisId)
+        }
+        return analysisId
+    }
+
+}
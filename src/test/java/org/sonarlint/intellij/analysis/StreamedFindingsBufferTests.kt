@@ -0,0 +1,100 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.analysis
+
+import com.intellij.openapi.vfs.VirtualFile
+import java.util.concurrent.CopyOnWriteArrayList
+import org.assertj.core.api.Assertions.assertThat
+import org.awaitility.Awaitility.await
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.finding.LiveFindings
+import org.sonarlint.intellij.finding.issue.LiveIssue
+
+class StreamedFindingsBufferTests : AbstractSonarLintLightTests() {
+
+    private val flushed = CopyOnWriteArrayList<LiveFindings>()
+
+    @Test
+    fun should_coalesce_streamed_findings_into_a_single_flush() {
+        val buffer = StreamedFindingsBuffer(50) { flushed.add(it) }
+        val file1 = mock<VirtualFile>()
+        val file2 = mock<VirtualFile>()
+
+        buffer.append(issuesFor(file1))
+        buffer.append(issuesFor(file2))
+
+        await().until { flushed.isNotEmpty() }
+        assertThat(flushed).hasSize(1)
+        assertThat(flushed[0].issuesPerFile.keys).containsExactly(file1, file2)
+    }
+
+    @Test
+    fun should_only_keep_latest_findings_of_a_file() {
+        val buffer = StreamedFindingsBuffer(60_000) { flushed.add(it) }
+        val file = mock<VirtualFile>()
+        val latestIssues = listOf(mock<LiveIssue>())
+
+        buffer.append(issuesFor(file))
+        buffer.append(LiveFindings(mapOf(file to latestIssues), emptyMap()))
+        buffer.flush()
+
+        assertThat(flushed.single().issuesPerFile[file]).isSameAs(latestIssues)
+    }
+
+    @Test
+    fun should_not_flush_discarded_files() {
+        val buffer = StreamedFindingsBuffer(60_000) { flushed.add(it) }
+        val file1 = mock<VirtualFile>()
+        val file2 = mock<VirtualFile>()
+
+        buffer.append(issuesFor(file1))
+        buffer.append(issuesFor(file2))
+        buffer.discard(listOf(file1))
+        buffer.flush()
+
+        assertThat(flushed.single().issuesPerFile.keys).containsExactly(file2)
+    }
+
+    @Test
+    fun should_not_flush_anything_after_discarding_all() {
+        val buffer = StreamedFindingsBuffer(60_000) { flushed.add(it) }
+        buffer.append(issuesFor(mock()))
+        buffer.append(issuesFor(mock()))
+
+        buffer.discardAll()
+        buffer.flush()
+
+        assertThat(flushed).isEmpty()
+    }
+
+    @Test
+    fun should_not_flush_when_nothing_is_pending() {
+        val buffer = StreamedFindingsBuffer(60_000) { flushed.add(it) }
+
+        buffer.flush()
+
+        assertThat(flushed).isEmpty()
+    }
+
+    private fun issuesFor(file: VirtualFile) = LiveFindings(mapOf(file to listOf(mock<LiveIssue>())), emptyMap())
+
+}
@@ -0,0 +1,130 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.cayc
+
+import com.intellij.openapi.util.Disposer
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import org.assertj.core.api.Assertions.assertThat
+import org.awaitility.Awaitility.await
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.core.BackendService
+
+class NewCodePeriodCacheTests : AbstractSonarLintLightTests() {
+
+    private lateinit var backendService: BackendService
+    private lateinit var cache: NewCodePeriodCache
+    private var now = 0L
+
+    @BeforeEach
+    fun prepare() {
+        backendService = mock()
+        replaceApplicationService(BackendService::class.java, backendService)
+        cache = NewCodePeriodCache(project)
+        Disposer.register(testRootDisposable, cache)
+        cache.nanoTime = { now }
+    }
+
+    @Test
+    fun `should not request the period again before it expires`() {
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(CompletableFuture.completedFuture("Since 30 days"))
+
+        cache.refreshIfExpired()
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted { assertThat(cache.periodAsString).isEqualTo("since 30 days") }
+        now += TimeUnit.MINUTES.toNanos(9)
+        cache.refreshIfExpired()
+
+        verify(backendService, times(1)).getNewCodePeriodText(project)
+    }
+
+    @Test
+    fun `should request the period again once it expired`() {
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(CompletableFuture.completedFuture("Since 30 days"))
+
+        cache.refreshIfExpired()
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted { assertThat(cache.periodAsString).isEqualTo("since 30 days") }
+        now += TimeUnit.MINUTES.toNanos(11)
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted {
+            cache.refreshIfExpired()
+            verify(backendService, times(2)).getNewCodePeriodText(project)
+        }
+    }
+
+    @Test
+    fun `should coalesce refreshes requested while one is in progress`() {
+        val pendingPeriod = CompletableFuture<String?>()
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(pendingPeriod)
+
+        cache.refreshIfExpired()
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted { verify(backendService, times(1)).getNewCodePeriodText(project) }
+        cache.refreshIfExpired()
+        cache.refreshAsync()
+        cache.refreshAsync()
+        verify(backendService, times(1)).getNewCodePeriodText(project)
+
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(CompletableFuture.completedFuture("Since 30 days"))
+        pendingPeriod.complete("Since previous version")
+
+        // The refreshes requested during the first one are answered by a single other request
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted {
+            verify(backendService, times(2)).getNewCodePeriodText(project)
+            assertThat(cache.periodAsString).isEqualTo("since 30 days")
+        }
+    }
+
+    @Test
+    fun `should keep the last known period after a failure`() {
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(CompletableFuture.completedFuture("Since 30 days"))
+        cache.refreshIfExpired()
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted { assertThat(cache.periodAsString).isEqualTo("since 30 days") }
+
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(CompletableFuture.completedFuture(null))
+        now += TimeUnit.MINUTES.toNanos(11)
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted {
+            cache.refreshIfExpired()
+            verify(backendService, times(2)).getNewCodePeriodText(project)
+        }
+
+        assertThat(cache.periodAsString).isEqualTo("since 30 days")
+    }
+
+    @Test
+    fun `should request the period again on next publication after a failure`() {
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(CompletableFuture.completedFuture(null))
+
+        cache.refreshIfExpired()
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted { verify(backendService, times(1)).getNewCodePeriodText(project) }
+        assertThat(cache.periodAsString).isEqualTo("(unknown code period)")
+
+        whenever(backendService.getNewCodePeriodText(project)).thenReturn(CompletableFuture.completedFuture("Since 30 days"))
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted {
+            cache.refreshIfExpired()
+            assertThat(cache.periodAsString).isEqualTo("since 30 days")
+        }
+    }
+
+}
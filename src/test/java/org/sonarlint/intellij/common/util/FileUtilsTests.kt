@@ -0,0 +1,126 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.common.util
+
+import com.intellij.openapi.application.WriteAction
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.PsiTestUtil
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.common.analysis.ExcludeResult
+import org.sonarlint.intellij.common.analysis.FileExclusionContributor
+
+class FileUtilsTests : AbstractSonarLintLightTests() {
+
+    @Test
+    fun should_keep_valid_files_of_a_batch() {
+        val first = myFixture.addFileToProject("src/First.java", "class First {}").virtualFile
+        val second = myFixture.addFileToProject("src/Second.java", "class Second {}").virtualFile
+
+        val validFiles = FileUtils.filterValidForSonarLintWithExtensiveChecks(listOf(first, second, first), project)
+
+        assertThat(validFiles).containsExactlyInAnyOrder(first, second)
+    }
+
+    @Test
+    fun should_filter_out_invalid_files_of_a_batch() {
+        val valid = myFixture.addFileToProject("src/Valid.java", "class Valid {}").virtualFile
+        val inIdeaFolder = myFixture.addFileToProject("src/.idea/misc.xml", "<project/>").virtualFile
+        val deleted = myFixture.addFileToProject("src/Deleted.java", "class Deleted {}").virtualFile
+        WriteAction.runAndWait<Exception> { deleted.delete(this) }
+
+        val validFiles = FileUtils.filterValidForSonarLintWithExtensiveChecks(listOf(valid, inIdeaFolder, deleted), project)
+
+        assertThat(validFiles).containsExactly(valid)
+    }
+
+    @Test
+    fun should_only_reject_the_file_whose_checks_fail() {
+        val valid = myFixture.addFileToProject("src/Valid.java", "class Valid {}").virtualFile
+        val failing = myFixture.addFileToProject("src/Failing.java", "class Failing {}").virtualFile
+        FileExclusionContributor.EP_NAME.point.registerExtension(FileExclusionContributor { _, file ->
+            if (file == failing) throw IllegalStateException("boom") else ExcludeResult.notExcluded()
+        }, testRootDisposable)
+
+        val validFiles = FileUtils.filterValidForSonarLintWithExtensiveChecks(listOf(valid, failing), project)
+
+        assertThat(validFiles).containsExactly(valid)
+    }
+
+    @Test
+    fun should_keep_the_order_of_the_batch() {
+        val nested = myFixture.addFileToProject("src/deeply/nested/Nested.java", "class Nested {}").virtualFile
+        val top = myFixture.addFileToProject("src/Top.java", "class Top {}").virtualFile
+
+        val validFiles = FileUtils.filterValidForSonarLintWithExtensiveChecks(listOf(nested, top), project)
+
+        assertThat(validFiles).containsExactly(nested, top)
+    }
+
+    @Test
+    fun should_reject_files_under_an_excluded_directory_without_checking_them() {
+        val valid = myFixture.addFileToProject("src/Valid.java", "class Valid {}").virtualFile
+        val excluded = myFixture.addFileToProject("src/excluded/Excluded.java", "class Excluded {}").virtualFile
+        val checkedFiles = mutableListOf<VirtualFile>()
+        FileExclusionContributor.EP_NAME.point.registerExtension(FileExclusionContributor { _, file ->
+            checkedFiles.add(file)
+            ExcludeResult.notExcluded()
+        }, testRootDisposable)
+        PsiTestUtil.addExcludedRoot(module, excluded.parent)
+
+        try {
+            val validFiles = FileUtils.filterValidForSonarLintWithExtensiveChecks(listOf(valid, excluded), project)
+
+            assertThat(validFiles).containsExactly(valid)
+            assertThat(checkedFiles).containsExactly(valid)
+        } finally {
+            PsiTestUtil.removeExcludedRoot(module, excluded.parent)
+        }
+    }
+
+    @Test
+    fun should_check_files_again_when_their_directory_is_not_excluded_anymore() {
+        val file = myFixture.addFileToProject("src/excluded/Excluded.java", "class Excluded {}").virtualFile
+        PsiTestUtil.addExcludedRoot(module, file.parent)
+        try {
+            assertThat(FileUtils.filterValidForSonarLintWithExtensiveChecks(listOf(file), project)).isEmpty()
+        } finally {
+            PsiTestUtil.removeExcludedRoot(module, file.parent)
+        }
+
+        val validFiles = FileUtils.filterValidForSonarLintWithExtensiveChecks(listOf(file), project)
+
+        assertThat(validFiles).containsExactly(file)
+    }
+
+    @Test
+    fun should_agree_with_single_file_checks() {
+        val files = listOf(
+            myFixture.addFileToProject("src/Foo.java", "class Foo {}").virtualFile,
+            myFixture.addFileToProject("src/.idea/workspace.xml", "<project/>").virtualFile,
+        )
+
+        val validFiles = FileUtils.filterValidForSonarLintWithExtensiveChecks(files, project)
+
+        assertThat(validFiles).containsExactlyElementsOf(files.filter { FileUtils.isFileValidForSonarLintWithExtensiveChecks(it, project) })
+    }
+
+}
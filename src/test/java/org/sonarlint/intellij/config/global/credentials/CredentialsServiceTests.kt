@@ -105,6 +105,54 @@ class CredentialsServiceTests : AbstractSonarLintLightTests() {
         }
     }
 
+    @Test
+    fun `should not read the credentials store again for the same connection`() {
+        PasswordSafe.instance.setToken(CONNECTION_NAME, EXPECTED_TOKEN)
+        tested.getCredentials(TEST_CONNECTION)
+        PasswordSafe.instance.setToken(CONNECTION_NAME, "changedOutsideOfTheService")
+
+        val actual = tested.getCredentials(TEST_CONNECTION)
+
+        assertThat(actual.left).isEqualTo(TokenDto(EXPECTED_TOKEN))
+    }
+
+    @Test
+    fun `should read the credentials store again after saving credentials`() {
+        PasswordSafe.instance.setToken(CONNECTION_NAME, "oldToken")
+        tested.getCredentials(TEST_CONNECTION)
+
+        tested.saveCredentials(CONNECTION_NAME, Either.forLeft(TokenDto(EXPECTED_TOKEN)))
+        val actual = tested.getCredentials(TEST_CONNECTION)
+
+        assertThat(actual.left).isEqualTo(TokenDto(EXPECTED_TOKEN))
+    }
+
+    @Test
+    fun `should give the new credentials to listeners notified of the change`() {
+        PasswordSafe.instance.setToken(CONNECTION_NAME, "oldToken")
+        tested.getCredentials(TEST_CONNECTION)
+        val credentialsSeenByListener = mutableListOf<Either<TokenDto, UsernamePasswordDto>>()
+        busConnection.subscribe(CredentialsChangeListener.TOPIC,
+            CredentialsChangeListener { credentialsSeenByListener.add(tested.getCredentials(TEST_CONNECTION)) })
+
+        tested.saveCredentials(CONNECTION_NAME, Either.forLeft(TokenDto(EXPECTED_TOKEN)))
+
+        assertThat(credentialsSeenByListener).hasSize(1)
+        assertThat(credentialsSeenByListener[0].left).isEqualTo(TokenDto(EXPECTED_TOKEN))
+    }
+
+    @Test
+    fun `should read the credentials store again after the credentials were invalidated`() {
+        PasswordSafe.instance.setToken(CONNECTION_NAME, "oldToken")
+        tested.getCredentials(TEST_CONNECTION)
+        PasswordSafe.instance.setToken(CONNECTION_NAME, EXPECTED_TOKEN)
+
+        tested.invalidateCredentials(CONNECTION_NAME)
+        val actual = tested.getCredentials(TEST_CONNECTION)
+
+        assertThat(actual.left).isEqualTo(TokenDto(EXPECTED_TOKEN))
+    }
+
     @Test
     fun `should set token to credential store`() {
         tested.saveCredentials(
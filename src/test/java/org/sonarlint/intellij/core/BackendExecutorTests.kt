@@ -0,0 +1,64 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class BackendExecutorTests {
+
+    private val pendingTasks = ArrayDeque<Runnable>()
+    private val executor = BackendExecutor("test", pendingTasks::addLast)
+
+    @Test
+    fun should_track_queued_tasks() {
+        executor.execute {}
+        executor.execute {}
+
+        assertThat(executor.getMetrics().queuedTasks).isEqualTo(2)
+
+        pendingTasks.removeFirst().run()
+
+        val metrics = executor.getMetrics()
+        assertThat(metrics.queuedTasks).isEqualTo(1)
+        assertThat(metrics.maxQueuedTasks).isEqualTo(2)
+        assertThat(metrics.completedTasks).isEqualTo(1)
+    }
+
+    @Test
+    fun should_count_failed_tasks_as_completed() {
+        executor.execute { throw IllegalStateException("boom") }
+
+        runCatching { pendingTasks.removeFirst().run() }
+
+        assertThat(executor.getMetrics().queuedTasks).isZero()
+        assertThat(executor.getMetrics().completedTasks).isEqualTo(1)
+    }
+
+    @Test
+    fun should_not_count_rejected_tasks_as_queued() {
+        val rejectingExecutor = BackendExecutor("rejecting") { throw IllegalStateException("shutdown") }
+
+        runCatching { rejectingExecutor.execute {} }
+
+        assertThat(rejectingExecutor.getMetrics().queuedTasks).isZero()
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core
+
+import java.nio.file.Path
+import java.nio.file.Paths
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+
+class BackendJvmOptionsTests {
+
+    private val archivePath = Paths.get("/cache/sonarlint/cds/sloop.jsa")
+
+    @Test
+    fun should_add_class_data_sharing_archive_on_recent_runtimes() {
+        val options = BackendJvmOptions.compute(BackendJvmOptions.DEFAULT_JVM_OPTIONS, 21, archivePath)
+
+        assertThat(options).isEqualTo("${BackendJvmOptions.DEFAULT_JVM_OPTIONS} -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=$archivePath")
+    }
+
+    @Test
+    fun should_not_add_class_data_sharing_archive_on_older_or_unknown_runtimes() {
+        assertThat(BackendJvmOptions.compute("-Xmx1g", 17, archivePath)).isEqualTo("-Xmx1g")
+        assertThat(BackendJvmOptions.compute("-Xmx1g", null, archivePath)).isEqualTo("-Xmx1g")
+        assertThat(BackendJvmOptions.compute("-Xmx1g", 21, null)).isEqualTo("-Xmx1g")
+    }
+
+    @Test
+    fun should_not_add_class_data_sharing_archive_when_path_contains_spaces() {
+        assertThat(BackendJvmOptions.compute("-Xmx1g", 21, Paths.get("/home/John Doe/sloop.jsa"))).isEqualTo("-Xmx1g")
+    }
+
+    @Test
+    fun should_keep_user_class_data_sharing_options() {
+        assertThat(BackendJvmOptions.compute("-Xshare:off", 21, archivePath)).isEqualTo("-Xshare:off")
+    }
+
+    @Test
+    fun should_parse_java_versions() {
+        assertThat(BackendJvmOptions.parseJavaMajorVersion("21.0.3")).isEqualTo(21)
+        assertThat(BackendJvmOptions.parseJavaMajorVersion("17")).isEqualTo(17)
+        assertThat(BackendJvmOptions.parseJavaMajorVersion("1.8.0_402")).isEqualTo(8)
+        assertThat(BackendJvmOptions.parseJavaMajorVersion("22-ea")).isEqualTo(22)
+        assertThat(BackendJvmOptions.parseJavaMajorVersion("unknown")).isNull()
+    }
+
+    @Test
+    fun should_read_java_version_from_release_file(@TempDir jreHome: Path) {
+        jreHome.resolve("release").toFile().writeText("IMPLEMENTOR=\"JetBrains s.r.o.\"\nJAVA_VERSION=\"21.0.3\"\n")
+
+        assertThat(BackendJvmOptions.readJavaMajorVersion(jreHome)).isEqualTo(21)
+        assertThat(BackendJvmOptions.readJavaMajorVersion(jreHome.resolve("missing"))).isNull()
+    }
+
+    @Test
+    fun should_create_the_archive_directory(@TempDir systemDir: Path) {
+        val archiveDir = systemDir.resolve("sonarlint/cds")
+
+        val path = BackendJvmOptions.prepareArchivePath(archiveDir)
+
+        assertThat(archiveDir).isDirectory()
+        assertThat(path).isEqualTo(archiveDir.resolve("sloop.jsa"))
+    }
+
+}
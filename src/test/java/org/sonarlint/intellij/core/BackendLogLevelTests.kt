@@ -0,0 +1,70 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.log.LogLevel
+
+class BackendLogLevelTests : AbstractSonarLintLightTests() {
+
+    @AfterEach
+    fun clearForcedLevel() {
+        System.clearProperty(BackendService.LOG_LEVEL_PROPERTY)
+        projectSettings.isVerboseEnabled = false
+    }
+
+    @Test
+    fun should_request_info_logs_when_no_open_project_has_verbose_output() {
+        projectSettings.isVerboseEnabled = false
+
+        assertThat(BackendService.computeBackendLogLevel(listOf(project))).isEqualTo(LogLevel.INFO)
+    }
+
+    @Test
+    fun should_request_debug_logs_when_an_open_project_has_verbose_output() {
+        projectSettings.isVerboseEnabled = true
+
+        assertThat(BackendService.computeBackendLogLevel(listOf(project))).isEqualTo(LogLevel.DEBUG)
+    }
+
+    @Test
+    fun should_request_info_logs_when_there_is_no_open_project() {
+        assertThat(BackendService.computeBackendLogLevel(emptyList())).isEqualTo(LogLevel.INFO)
+    }
+
+    @Test
+    fun should_request_the_level_forced_by_the_system_property() {
+        projectSettings.isVerboseEnabled = true
+        System.setProperty(BackendService.LOG_LEVEL_PROPERTY, " warn ")
+
+        assertThat(BackendService.computeBackendLogLevel(listOf(project))).isEqualTo(LogLevel.WARN)
+    }
+
+    @Test
+    fun should_ignore_an_unknown_forced_level() {
+        System.setProperty(BackendService.LOG_LEVEL_PROPERTY, "verbose")
+
+        assertThat(BackendService.computeBackendLogLevel(listOf(project))).isEqualTo(LogLevel.INFO)
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core
+
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.LightVirtualFile
+import java.util.concurrent.CompletableFuture
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+
+class FileExclusionStatusCacheTests : AbstractSonarLintLightTests() {
+
+    private lateinit var cache: FileExclusionStatusCache
+    private lateinit var included: VirtualFile
+    private lateinit var excluded: VirtualFile
+    private val requestedFiles = mutableListOf<List<VirtualFile>>()
+
+    @BeforeEach
+    fun prepare() {
+        cache = FileExclusionStatusCache(project)
+        included = createTestFile("Included.java", "class Included {}")
+        excluded = createTestFile("Excluded.java", "class Excluded {}")
+    }
+
+    @AfterEach
+    fun cleanup() {
+        Disposer.dispose(cache)
+    }
+
+    @Test
+    fun should_return_excluded_files() {
+        val result = cache.getExcludedFiles("module", listOf(included, excluded)) { fetch(it, setOf(excluded)) }
+
+        assertThat(result.join()).containsExactly(excluded)
+    }
+
+    @Test
+    fun should_cache_statuses() {
+        cache.getExcludedFiles("module", listOf(included, excluded)) { fetch(it, setOf(excluded)) }.join()
+
+        val result = cache.getExcludedFiles("module", listOf(excluded)) { fetch(it, emptySet()) }
+
+        assertThat(result.join()).containsExactly(excluded)
+        assertThat(requestedFiles).containsExactly(listOf(included, excluded))
+    }
+
+    @Test
+    fun should_coalesce_concurrent_requests() {
+        val pendingResponse = CompletableFuture<Set<VirtualFile>>()
+        val first = cache.getExcludedFiles("module", listOf(excluded)) {
+            requestedFiles.add(it)
+            pendingResponse
+        }
+
+        val second = cache.getExcludedFiles("module", listOf(included, excluded)) { fetch(it, emptySet()) }
+        pendingResponse.complete(setOf(excluded))
+
+        assertThat(first.join()).containsExactly(excluded)
+        assertThat(second.join()).containsExactly(excluded)
+        assertThat(requestedFiles).containsExactly(listOf(excluded), listOf(included))
+    }
+
+    @Test
+    fun should_request_again_after_invalidation() {
+        cache.getExcludedFiles("module", listOf(excluded)) { fetch(it, setOf(excluded)) }.join()
+
+        setProjectLevelExclusions(emptyList())
+        val result = cache.getExcludedFiles("module", listOf(excluded)) { fetch(it, emptySet()) }
+
+        assertThat(result.join()).isEmpty()
+        assertThat(requestedFiles).containsExactly(listOf(excluded), listOf(excluded))
+    }
+
+    @Test
+    fun should_not_cache_failures() {
+        val failed = cache.getExcludedFiles("module", listOf(excluded)) { CompletableFuture.failedFuture(IllegalStateException("boom")) }
+
+        val result = cache.getExcludedFiles("module", listOf(excluded)) { fetch(it, setOf(excluded)) }
+
+        assertThat(failed).isCompletedExceptionally()
+        assertThat(result.join()).containsExactly(excluded)
+    }
+
+    @Test
+    fun should_evict_the_least_recently_used_statuses_beyond_the_limit() {
+        cache.getExcludedFiles("module", listOf(included, excluded)) { fetch(it, setOf(excluded)) }.join()
+        cache.getExcludedFiles("module", listOf(excluded)) { fetch(it, setOf(excluded)) }.join()
+        val otherFiles = (1..999).map { LightVirtualFile("File$it.java") }
+        cache.getExcludedFiles("module", otherFiles) { fetch(it, emptySet()) }.join()
+        requestedFiles.clear()
+
+        cache.getExcludedFiles("module", listOf(included, excluded)) { fetch(it, setOf(excluded)) }.join()
+
+        assertThat(requestedFiles).containsExactly(listOf(included))
+    }
+
+    private fun fetch(files: List<VirtualFile>, excludedFiles: Set<VirtualFile>): CompletableFuture<Set<VirtualFile>> {
+        requestedFiles.add(files)
+        return CompletableFuture.completedFuture(excludedFiles.intersect(files.toSet()))
+    }
+
+}
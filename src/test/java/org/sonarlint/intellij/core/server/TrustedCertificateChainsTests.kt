@@ -0,0 +1,83 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.core.server
+
+import java.time.Duration
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+private val CHAIN = listOf("leaf", "intermediate")
+private const val AUTH_TYPE = "RSA"
+
+class TrustedCertificateChainsTests {
+
+    private var now = 1_000L
+    private val tested = TrustedCertificateChains(maxSize = 2, maxAge = Duration.ofMillis(100), clock = { now })
+
+    @Test
+    fun should_remember_trusted_chains() {
+        tested.markTrusted(CHAIN, AUTH_TYPE, Long.MAX_VALUE)
+
+        assertThat(tested.isTrusted(CHAIN, AUTH_TYPE)).isTrue()
+        assertThat(tested.isTrusted(CHAIN, "EC")).isFalse()
+        assertThat(tested.isTrusted(listOf("leafintermediate"), AUTH_TYPE)).isFalse()
+    }
+
+    @Test
+    fun should_expire_when_a_certificate_expires() {
+        tested.markTrusted(CHAIN, AUTH_TYPE, now + 10)
+
+        now += 10
+
+        assertThat(tested.isTrusted(CHAIN, AUTH_TYPE)).isFalse()
+    }
+
+    @Test
+    fun should_expire_after_max_age() {
+        tested.markTrusted(CHAIN, AUTH_TYPE, Long.MAX_VALUE)
+
+        now += 100
+
+        assertThat(tested.isTrusted(CHAIN, AUTH_TYPE)).isFalse()
+    }
+
+    @Test
+    fun should_evict_least_recently_used_chains() {
+        tested.markTrusted(listOf("a"), AUTH_TYPE, Long.MAX_VALUE)
+        tested.markTrusted(listOf("b"), AUTH_TYPE, Long.MAX_VALUE)
+        tested.isTrusted(listOf("a"), AUTH_TYPE)
+
+        tested.markTrusted(listOf("c"), AUTH_TYPE, Long.MAX_VALUE)
+
+        assertThat(tested.isTrusted(listOf("a"), AUTH_TYPE)).isTrue()
+        assertThat(tested.isTrusted(listOf("b"), AUTH_TYPE)).isFalse()
+        assertThat(tested.isTrusted(listOf("c"), AUTH_TYPE)).isTrue()
+    }
+
+    @Test
+    fun should_forget_everything_when_cleared() {
+        tested.markTrusted(CHAIN, AUTH_TYPE, Long.MAX_VALUE)
+
+        tested.clear()
+
+        assertThat(tested.isTrusted(CHAIN, AUTH_TYPE)).isFalse()
+    }
+
+}
@@ -21,10 +21,13 @@ package org.sonarlint.intellij.editor
 
 import com.intellij.codeInsight.daemon.impl.DaemonCodeAnalyzerEx
 import com.intellij.codeInsight.daemon.impl.HighlightInfo
+import com.intellij.codeInsight.intention.IntentionAction
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.command.WriteCommandAction
 import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.fileEditor.FileEditorManager
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent
+import com.intellij.openapi.fileEditor.FileEditorManagerListener
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.testFramework.PlatformTestUtil
 import java.util.UUID
@@ -180,6 +183,96 @@ class DirectHighlighterTests : AbstractSonarLintLightTests() {
         }
     }
 
+    @Test
+    fun should_reuse_intention_actions_of_a_finding_when_its_highlight_is_rewritten() {
+        val content = "class Foo {}"
+        val file = createAndOpenTestPsiFile("Foo.java", content).virtualFile
+        val issueMessage = "Remove this unused class"
+        seedDisplayedIssue(file, content, issueMessage)
+
+        withOpenEditor(file) {
+            val highlighter = getService(project, DirectHighlighter::class.java)
+            highlighter.applyHighlightsForTest(file)
+            val actions = intentionActionsOf(sonarLintHighlights(file, issueMessage).single())
+
+            // Changes how the highlight is rendered, but not its intention actions
+            globalSettings.isFocusOnNewCode = true
+            highlighter.applyHighlightsForTest(file)
+
+            val rewrittenActions = intentionActionsOf(sonarLintHighlights(file, issueMessage).single())
+            assertThat(rewrittenActions).isNotEmpty
+            assertThat(rewrittenActions).zipSatisfy(actions) { rewritten, previous -> assertThat(rewritten).isSameAs(previous) }
+        }
+    }
+
+    @Test
+    fun should_not_defer_highlights_before_the_first_selection_event() {
+        val content = "class Foo {}"
+        val file = createAndOpenTestPsiFile("Foo.java", content).virtualFile
+        createAndOpenTestPsiFile("Bar.java", content)
+        val issueMessage = "Remove this unused class"
+        seedDisplayedIssue(file, content, issueMessage)
+        val executor = ScheduledThreadPoolExecutor(1)
+        val highlighter = DirectHighlighter(project, executor, 0)
+
+        try {
+            highlighter.updateHighlights(listOf(file))
+            awaitQueue(executor)
+            PlatformTestUtil.dispatchAllEventsInIdeEventQueue()
+
+            assertThat(sonarLintHighlights(file, issueMessage)).hasSize(1)
+        } finally {
+            highlighter.dispose()
+        }
+    }
+
+    @Test
+    fun should_defer_highlights_of_a_file_open_in_a_background_tab() {
+        val content = "class Foo {}"
+        val backgroundFile = createAndOpenTestPsiFile("Foo.java", content).virtualFile
+        val selectedFile = createAndOpenTestPsiFile("Bar.java", content).virtualFile
+        val issueMessage = "Remove this unused class"
+        seedDisplayedIssue(backgroundFile, content, issueMessage)
+        val executor = ScheduledThreadPoolExecutor(1)
+        val highlighter = DirectHighlighter(project, executor, 0)
+
+        try {
+            selectFile(selectedFile)
+            highlighter.updateHighlights(listOf(backgroundFile))
+            awaitQueue(executor)
+            PlatformTestUtil.dispatchAllEventsInIdeEventQueue()
+
+            assertThat(sonarLintHighlights(backgroundFile, issueMessage)).isEmpty()
+        } finally {
+            highlighter.dispose()
+        }
+    }
+
+    @Test
+    fun should_refresh_a_deferred_file_when_it_gets_selected() {
+        val content = "class Foo {}"
+        val backgroundFile = createAndOpenTestPsiFile("Foo.java", content).virtualFile
+        val selectedFile = createAndOpenTestPsiFile("Bar.java", content).virtualFile
+        val issueMessage = "Remove this unused class"
+        seedDisplayedIssue(backgroundFile, content, issueMessage)
+        val executor = ScheduledThreadPoolExecutor(1)
+        val highlighter = DirectHighlighter(project, executor, 0)
+
+        try {
+            selectFile(selectedFile)
+            highlighter.updateHighlights(listOf(backgroundFile))
+            awaitQueue(executor)
+
+            selectFile(backgroundFile)
+            awaitQueue(executor)
+            PlatformTestUtil.dispatchAllEventsInIdeEventQueue()
+
+            assertThat(sonarLintHighlights(backgroundFile, issueMessage)).hasSize(1)
+        } finally {
+            highlighter.dispose()
+        }
+    }
+
     private fun seedDisplayedIssue(file: VirtualFile, content: String, message: String) {
         val document = FileDocumentManager.getInstance().getDocument(file)!!
         val (startOffset, endOffset) = textRangeOf(content, "Foo")
@@ -208,10 +301,29 @@ class DirectHighlighterTests : AbstractSonarLintLightTests() {
         block()
     }
 
+    private fun selectFile(file: VirtualFile) {
+        // Only the selected file is visible, the other open files are in background tabs
+        val manager = mock<FileEditorManager>()
+        whenever(manager.selectedFiles).thenReturn(arrayOf(file))
+        val event = mock<FileEditorManagerEvent>()
+        whenever(event.manager).thenReturn(manager)
+        whenever(event.newFile).thenReturn(file)
+        project.messageBus.syncPublisher(FileEditorManagerListener.FILE_EDITOR_MANAGER).selectionChanged(event)
+    }
+
     private fun awaitQueue(executor: ScheduledThreadPoolExecutor) {
         executor.submit {}.get(5, TimeUnit.SECONDS)
     }
 
+    private fun intentionActionsOf(info: HighlightInfo): List<IntentionAction> {
+        val actions = mutableListOf<IntentionAction>()
+        info.findRegisteredQuickFix { descriptor, _ ->
+            actions.add(descriptor.action)
+            null
+        }
+        return actions
+    }
+
     private fun sonarLintHighlights(file: VirtualFile, expectedMessage: String): List<HighlightInfo> {
         ApplicationManager.getApplication().assertIsDispatchThread()
         val document = FileDocumentManager.getInstance().getDocument(file)!!
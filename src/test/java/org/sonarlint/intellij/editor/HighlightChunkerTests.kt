@@ -0,0 +1,115 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.editor
+
+import com.intellij.openapi.util.TextRange
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class HighlightChunkerTests {
+
+    @Test
+    fun should_skip_ranges_already_up_to_date() {
+        val planned = listOf(Planned(0, 5, "a"), Planned(10, 15, "b"))
+        val applied = listOf(AppliedHighlight(TextRange(0, 5), "a"), AppliedHighlight(TextRange(10, 15), "b"))
+
+        assertThat(split(planned, applied, null)).isEmpty()
+    }
+
+    @Test
+    fun should_only_rewrite_changed_ranges() {
+        val planned = listOf(Planned(0, 5, "a"), Planned(10, 15, "b2"), Planned(20, 25, "c"))
+        val applied = listOf(
+            AppliedHighlight(TextRange(0, 5), "a"),
+            AppliedHighlight(TextRange(10, 15), "b"),
+            AppliedHighlight(TextRange(20, 25), "c"),
+        )
+
+        val chunks = split(planned, applied, null)
+
+        assertThat(chunks).hasSize(1)
+        assertThat(chunks[0].range).isEqualTo(TextRange(10, 15))
+        assertThat(chunks[0].items.map { it.key }).containsExactly("b2")
+    }
+
+    @Test
+    fun should_rewrite_range_of_removed_highlight_with_no_replacement() {
+        val applied = listOf(AppliedHighlight(TextRange(3, 8), "a"))
+
+        val chunks = split(emptyList(), applied, null)
+
+        assertThat(chunks).hasSize(1)
+        assertThat(chunks[0].range).isEqualTo(TextRange(3, 8))
+        assertThat(chunks[0].items).isEmpty()
+    }
+
+    @Test
+    fun should_keep_overlapping_old_and_new_highlights_in_the_same_chunk() {
+        val planned = listOf(Planned(4, 12, "moved"))
+        val applied = listOf(AppliedHighlight(TextRange(0, 6), "old"))
+
+        val chunks = split(planned, applied, null)
+
+        assertThat(chunks).hasSize(1)
+        assertThat(chunks[0].range).isEqualTo(TextRange(0, 12))
+    }
+
+    @Test
+    fun should_not_span_chunks_over_unchanged_highlights() {
+        val planned = listOf(Planned(0, 5, "a2"), Planned(10, 15, "b"), Planned(20, 25, "c2"))
+        val applied = listOf(AppliedHighlight(TextRange(10, 15), "b"))
+
+        val chunks = split(planned, applied, null)
+
+        assertThat(chunks.map { it.range }).containsExactly(TextRange(0, 5), TextRange(20, 25))
+    }
+
+    @Test
+    fun should_put_visible_chunks_first_then_closest_ones() {
+        val planned = listOf(Planned(0, 5, "top"), Planned(100, 105, "visible"), Planned(200, 205, "bottom"), Planned(130, 135, "near"))
+
+        val chunks = split(planned, emptyList(), TextRange(90, 120), maxHighlightsPerChunk = 1)
+
+        assertThat(chunks.map { it.items.single().key }).containsExactly("visible", "near", "bottom", "top")
+        assertThat(chunks.map { it.isVisible }).containsExactly(true, false, false, false)
+    }
+
+    @Test
+    fun should_limit_chunk_size() {
+        val planned = (0 until 10).map { Planned(it * 10, it * 10 + 5, "f$it") }
+
+        val chunks = split(planned, emptyList(), null, maxHighlightsPerChunk = 4)
+
+        assertThat(chunks.map { it.items.size }).containsExactly(4, 4, 2)
+        assertThat(chunks.map { it.range }).containsExactly(TextRange(0, 35), TextRange(40, 75), TextRange(80, 95))
+    }
+
+    private fun split(
+        planned: List<Planned>,
+        applied: List<AppliedHighlight>,
+        visibleRange: TextRange?,
+        maxHighlightsPerChunk: Int = 100,
+    ) = HighlightChunker.split(planned, applied, { it.range }, { it.key }, visibleRange, maxHighlightsPerChunk)
+
+    private data class Planned(val range: TextRange, val key: String) {
+        constructor(startOffset: Int, endOffset: Int, key: String) : this(TextRange(startOffset, endOffset), key)
+    }
+
+}
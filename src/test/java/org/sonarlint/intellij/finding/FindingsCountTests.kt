@@ -0,0 +1,54 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.finding
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+class FindingsCountTests {
+
+    @Test
+    fun should_count_unresolved_findings() {
+        val findings = listOf(
+            aFinding(isResolved = false, isOnNewCode = true),
+            aFinding(isResolved = false, isOnNewCode = false),
+            aFinding(isResolved = true, isOnNewCode = true),
+        )
+
+        val count = FindingsCount.of(findings)
+
+        assertThat(count).isEqualTo(FindingsCount(2, 1))
+        assertThat(count.relevant(isFocusOnNewCode = false)).isEqualTo(2)
+        assertThat(count.relevant(isFocusOnNewCode = true)).isEqualTo(1)
+    }
+
+    @Test
+    fun should_count_nothing_when_no_findings() {
+        assertThat(FindingsCount.of(emptyList())).isEqualTo(FindingsCount.NONE)
+    }
+
+    private fun aFinding(isResolved: Boolean, isOnNewCode: Boolean) = mock<Finding> {
+        on { isResolved() } doReturn isResolved
+        on { isOnNewCode() } doReturn isOnNewCode
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.finding
+
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.editor.Document
+import com.intellij.openapi.vfs.VirtualFile
+import java.util.UUID
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.finding.issue.LiveIssue
+import org.sonarlint.intellij.util.getDocument
+import org.sonarsource.sonarlint.core.client.utils.ImpactSeverity
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.ImpactDto
+import org.sonarsource.sonarlint.core.rpc.protocol.client.issue.RaisedIssueDto
+import org.sonarsource.sonarlint.core.rpc.protocol.common.CleanCodeAttribute
+import org.sonarsource.sonarlint.core.rpc.protocol.common.Either
+import org.sonarsource.sonarlint.core.rpc.protocol.common.ImpactSeverity as RpcImpactSeverity
+import org.sonarsource.sonarlint.core.rpc.protocol.common.IssueSeverity
+import org.sonarsource.sonarlint.core.rpc.protocol.common.MQRModeDetails
+import org.sonarsource.sonarlint.core.rpc.protocol.common.RuleType
+import org.sonarsource.sonarlint.core.rpc.protocol.common.SoftwareQuality
+import org.sonarsource.sonarlint.core.rpc.protocol.common.StandardModeDetails
+
+class LiveFindingTests : AbstractSonarLintLightTests() {
+
+    @Test
+    fun should_filter_valid_findings() {
+        val file = myFixture.configureByText("Foo.java", "class Foo { int bar; }").virtualFile
+        val document = file.getDocument()!!
+        val validIssue = anIssue(file, document, 0, 5)
+        val invalidIssue = anIssue(file, document, 12, 20)
+
+        WriteCommandAction.runWriteCommandAction(project) {
+            document.deleteString(11, 21)
+        }
+
+        assertThat(LiveFinding.filterValid(listOf(validIssue, invalidIssue))).containsExactly(validIssue)
+    }
+
+    @Test
+    fun should_refresh_cached_validity_when_document_changes() {
+        val file = myFixture.configureByText("Foo.java", "class Foo { int bar; }").virtualFile
+        val document = file.getDocument()!!
+        val issue = anIssue(file, document, 12, 20)
+
+        LiveFinding.computeValidity(listOf(issue))
+        assertThat(issue.isValid()).isTrue()
+
+        WriteCommandAction.runWriteCommandAction(project) {
+            document.deleteString(11, 21)
+        }
+
+        assertThat(issue.isValid()).isFalse()
+    }
+
+    @Test
+    fun should_share_rule_attributes_between_findings_of_the_same_rule() {
+        val file = myFixture.configureByText("Foo.java", "class Foo { int bar; }").virtualFile
+        val first = LiveIssue(module, anMqrIssueDto("java:S1068"), file, emptyList())
+        val second = LiveIssue(module, anMqrIssueDto("java:S1068"), file, emptyList())
+        val otherRule = LiveIssue(module, anMqrIssueDto("java:S1144"), file, emptyList())
+
+        assertThat(second.getRuleKey()).isSameAs(first.getRuleKey())
+        assertThat(second.getImpacts()).isSameAs(first.getImpacts())
+        assertThat(otherRule.getImpacts()).isNotSameAs(first.getImpacts())
+        assertThat(first.getHighestImpact()).isEqualTo(ImpactSeverity.HIGH)
+    }
+
+    private fun anMqrIssueDto(ruleKey: String): RaisedIssueDto {
+        val issueDto = mock<RaisedIssueDto>()
+        whenever(issueDto.id).thenReturn(UUID.randomUUID())
+        whenever(issueDto.primaryMessage).thenReturn("message")
+        // A new String instance per finding, as when deserialized from the backend
+        whenever(issueDto.ruleKey).thenReturn(String(ruleKey.toCharArray()))
+        val mqrModeDetails = mock<MQRModeDetails>()
+        whenever(mqrModeDetails.cleanCodeAttribute).thenReturn(CleanCodeAttribute.CONVENTIONAL)
+        whenever(mqrModeDetails.impacts).thenReturn(listOf(ImpactDto(SoftwareQuality.MAINTAINABILITY, RpcImpactSeverity.HIGH)))
+        whenever(issueDto.severityMode).thenReturn(Either.forRight(mqrModeDetails))
+        return issueDto
+    }
+
+    private fun anIssue(file: VirtualFile, document: Document, startOffset: Int, endOffset: Int): LiveIssue {
+        val issueDto = mock<RaisedIssueDto>()
+        whenever(issueDto.id).thenReturn(UUID.randomUUID())
+        whenever(issueDto.primaryMessage).thenReturn("message")
+        whenever(issueDto.ruleKey).thenReturn("java:S1068")
+        whenever(issueDto.severityMode).thenReturn(Either.forLeft(StandardModeDetails(IssueSeverity.MAJOR, RuleType.CODE_SMELL)))
+        return LiveIssue(module, issueDto, file, document.createRangeMarker(startOffset, endOffset), null, emptyList())
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.module
+
+import com.intellij.openapi.util.Disposer
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.mock
+import org.mockito.kotlin.any
+import org.mockito.kotlin.clearInvocations
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.never
+import org.mockito.kotlin.timeout
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyNoInteractions
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.core.BackendService
+
+class ModuleScopesSynchronizerTests : AbstractSonarLintLightTests() {
+
+    private lateinit var backendService: BackendService
+    private lateinit var synchronizer: ModuleScopesSynchronizer
+
+    @BeforeEach
+    fun setup() {
+        backendService = mock(BackendService::class.java)
+        replaceApplicationService(BackendService::class.java, backendService)
+        synchronizer = ModuleScopesSynchronizer(project)
+        clearInvocations(backendService)
+    }
+
+    @AfterEach
+    fun cleanup() {
+        Disposer.dispose(synchronizer)
+    }
+
+    @Test
+    fun should_add_module_scopes_after_debounce_delay() {
+        synchronizer.modulesAdded(listOf(module))
+
+        verify(backendService, timeout(2000)).modulesAdded(project, listOf(module))
+    }
+
+    @Test
+    fun should_not_update_scope_of_module_removed_and_added_back() {
+        synchronizer.moduleRemoved(module)
+        synchronizer.modulesAdded(listOf(module))
+        synchronizer.flush()
+
+        verifyNoInteractions(backendService)
+    }
+
+    @Test
+    fun should_update_scope_of_module_added_back_with_a_different_binding() {
+        synchronizer.moduleRemoved(module)
+        moduleSettings.projectKey = "overriddenProjectKey"
+        synchronizer.modulesAdded(listOf(module))
+        synchronizer.flush()
+
+        verify(backendService).modulesAdded(project, listOf(module))
+        verify(backendService, never()).moduleScopesRemoved(any())
+    }
+
+    @Test
+    fun should_add_scope_of_new_module_removed_and_added_back() {
+        synchronizer.modulesAdded(listOf(module))
+        synchronizer.moduleRemoved(module)
+        synchronizer.modulesAdded(listOf(module))
+        synchronizer.flush()
+
+        verify(backendService).modulesAdded(project, listOf(module))
+    }
+
+    @Test
+    fun should_not_remove_scope_of_module_still_in_the_project() {
+        synchronizer.moduleRemoved(module)
+        synchronizer.flush()
+
+        verifyNoInteractions(backendService)
+    }
+
+    @Test
+    fun should_coalesce_changes_into_a_single_notification() {
+        synchronizer.modulesAdded(listOf(module))
+        synchronizer.modulesAdded(listOf(module))
+        synchronizer.flush()
+        synchronizer.flush()
+
+        verify(backendService).modulesAdded(eq(project), eq(listOf(module)))
+    }
+
+}
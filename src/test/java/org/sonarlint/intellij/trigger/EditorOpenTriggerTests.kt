@@ -20,8 +20,11 @@
 package org.sonarlint.intellij.trigger
 
 import com.intellij.openapi.fileEditor.FileEditorManager
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent
 import com.intellij.openapi.module.Module
+import com.intellij.openapi.util.Disposer
 import com.intellij.openapi.vfs.VirtualFile
+import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.mockito.Mockito
@@ -31,6 +34,7 @@ import org.mockito.Mockito.`when`
 import org.mockito.kotlin.any
 import org.mockito.kotlin.clearInvocations
 import org.mockito.kotlin.timeout
+import org.mockito.kotlin.whenever
 import org.sonarlint.intellij.AbstractSonarLintLightTests
 import org.sonarlint.intellij.core.BackendService
 
@@ -51,6 +55,11 @@ class EditorOpenTriggerTests : AbstractSonarLintLightTests() {
         clearInvocations(backendService)
     }
 
+    @AfterEach
+    fun cleanup() {
+        Disposer.dispose(editorTrigger)
+    }
+
     @Test
     fun `should notify backend when file is opened`() {
         val file = createTestFile("MyClass.java", "class MyClass {}")
@@ -68,4 +77,21 @@ class EditorOpenTriggerTests : AbstractSonarLintLightTests() {
 
         verify(backendService, Mockito.never()).didCloseFile(any<Module>(), any<VirtualFile>())
     }
+
+    @Test
+    fun `should defer background tabs until they are selected`() {
+        val backgroundFile = createAndOpenTestVirtualFile("Background.java", "class Background {}")
+        val selectedFile = createAndOpenTestVirtualFile("Selected.java", "class Selected {}")
+
+        editorTrigger.onProjectOpened()
+
+        verify(backendService, timeout(2000)).didOpenFile(module, selectedFile)
+        verify(backendService, Mockito.never()).didOpenFile(module, backgroundFile)
+
+        val event = mock(FileEditorManagerEvent::class.java)
+        whenever(event.newFile).thenReturn(backgroundFile)
+        editorTrigger.selectionChanged(event)
+
+        verify(backendService, timeout(2000)).didOpenFile(module, backgroundFile)
+    }
 }
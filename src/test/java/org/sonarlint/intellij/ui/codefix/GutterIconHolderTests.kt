@@ -0,0 +1,68 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.ui.codefix
+
+import com.intellij.openapi.editor.markup.RangeHighlighter
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.finding.Issue
+
+class GutterIconHolderTests : AbstractSonarLintLightTests() {
+
+    @Test
+    fun should_only_update_icons_of_changed_lines() {
+        myFixture.configureByText("Foo.java", "class Foo {\n  int a;\n  int b;\n  int c;\n}")
+        val holder = GutterIconHolder(myFixture.editor)
+        val issueOnLine1 = mock<Issue>()
+        val issueOnLine2 = mock<Issue>()
+        holder.updateIcons(mapOf(1 to listOf(issueOnLine1), 2 to listOf(issueOnLine2)))
+        val iconsBefore = codeFixIcons()
+
+        val issueOnLine3 = mock<Issue>()
+        holder.updateIcons(mapOf(1 to listOf(issueOnLine1), 3 to listOf(issueOnLine3)))
+
+        val iconsAfter = codeFixIcons()
+        assertThat(iconsAfter).hasSize(2)
+        assertThat(iconsAfter[1]).isSameAs(iconsBefore[1])
+        assertThat(iconsBefore[2]!!.isValid).isFalse()
+        assertThat((iconsAfter[3]!!.gutterIconRenderer as CodeFixGutterIconRenderer).issues).containsExactly(issueOnLine3)
+    }
+
+    @Test
+    fun should_remove_all_icons_when_clearing() {
+        myFixture.configureByText("Foo.java", "class Foo {\n  int a;\n}")
+        val holder = GutterIconHolder(myFixture.editor)
+        holder.updateIcons(mapOf(1 to listOf(mock<Issue>())))
+
+        holder.clearIcons()
+
+        assertThat(codeFixIcons()).isEmpty()
+    }
+
+    private fun codeFixIcons(): Map<Int, RangeHighlighter> {
+        val editor = myFixture.editor
+        return editor.markupModel.allHighlighters
+            .filter { it.gutterIconRenderer is CodeFixGutterIconRenderer }
+            .associateBy { editor.document.getLineNumber(it.startOffset) }
+    }
+
+}
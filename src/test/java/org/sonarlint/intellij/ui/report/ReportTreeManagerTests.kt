@@ -0,0 +1,100 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.ui.report
+
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.PlatformTestUtil
+import java.util.UUID
+import javax.swing.tree.DefaultTreeModel
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.entry
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.finding.hotspot.LiveSecurityHotspot
+import org.sonarlint.intellij.finding.issue.LiveIssue
+import org.sonarlint.intellij.ui.nodes.FileNode
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.VulnerabilityProbability
+import org.sonarsource.sonarlint.core.rpc.protocol.client.hotspot.RaisedHotspotDto
+import org.sonarsource.sonarlint.core.rpc.protocol.client.issue.RaisedIssueDto
+import org.sonarsource.sonarlint.core.rpc.protocol.common.Either
+import org.sonarsource.sonarlint.core.rpc.protocol.common.IssueSeverity
+import org.sonarsource.sonarlint.core.rpc.protocol.common.RuleType
+import org.sonarsource.sonarlint.core.rpc.protocol.common.StandardModeDetails
+
+class ReportTreeManagerTests : AbstractSonarLintLightTests() {
+
+    private val treeManager by lazy { ReportTreeManager(project, mock()) }
+
+    @Test
+    fun should_keep_streamed_issues_of_a_file_when_its_hotspots_are_streamed() {
+        val file = myFixture.addFileToProject("src/A.java", "class A {}").virtualFile
+
+        treeManager.updateFiles(setOf(file), emptySet(), aSplit(issues = mapOf(file to listOf(anIssue(file)))))
+        treeManager.updateFiles(emptySet(), setOf(file), aSplit(hotspots = mapOf(file to listOf(aHotspot(file)))))
+        PlatformTestUtil.dispatchAllEventsInIdeEventQueue()
+
+        assertThat(displayedFindingsCountByFile(treeManager.issuesTreeBuilder.model)).containsExactly(entry(file, 1))
+        assertThat(displayedFindingsCountByFile(treeManager.securityHotspotsTreeBuilder.model)).containsExactly(entry(file, 1))
+    }
+
+    @Test
+    fun should_keep_streamed_hotspots_of_a_file_when_its_issues_are_streamed() {
+        val file = myFixture.addFileToProject("src/A.java", "class A {}").virtualFile
+
+        treeManager.updateFiles(emptySet(), setOf(file), aSplit(hotspots = mapOf(file to listOf(aHotspot(file)))))
+        treeManager.updateFiles(setOf(file), emptySet(), aSplit(issues = mapOf(file to listOf(anIssue(file), anIssue(file)))))
+        PlatformTestUtil.dispatchAllEventsInIdeEventQueue()
+
+        assertThat(displayedFindingsCountByFile(treeManager.issuesTreeBuilder.model)).containsExactly(entry(file, 2))
+        assertThat(displayedFindingsCountByFile(treeManager.securityHotspotsTreeBuilder.model)).containsExactly(entry(file, 1))
+    }
+
+    private fun displayedFindingsCountByFile(model: DefaultTreeModel): Map<VirtualFile, Int> {
+        val root = model.root
+        return (0 until model.getChildCount(root)).map { model.getChild(root, it) as FileNode }.associate { it.file() to it.childCount }
+    }
+
+    private fun aSplit(
+        issues: Map<VirtualFile, Collection<LiveIssue>> = emptyMap(),
+        hotspots: Map<VirtualFile, Collection<LiveSecurityHotspot>> = emptyMap(),
+    ) = SplitFindings(issues, emptyMap(), hotspots, emptyMap(), emptyMap(), emptyMap())
+
+    private fun anIssue(file: VirtualFile): LiveIssue {
+        val issueDto = mock<RaisedIssueDto>()
+        whenever(issueDto.id).thenReturn(UUID.randomUUID())
+        whenever(issueDto.primaryMessage).thenReturn("message")
+        whenever(issueDto.ruleKey).thenReturn("java:S1068")
+        whenever(issueDto.severityMode).thenReturn(Either.forLeft(StandardModeDetails(IssueSeverity.MAJOR, RuleType.CODE_SMELL)))
+        return LiveIssue(module, issueDto, file, emptyList())
+    }
+
+    private fun aHotspot(file: VirtualFile): LiveSecurityHotspot {
+        val hotspotDto = mock<RaisedHotspotDto>()
+        whenever(hotspotDto.id).thenReturn(UUID.randomUUID())
+        whenever(hotspotDto.primaryMessage).thenReturn("message")
+        whenever(hotspotDto.ruleKey).thenReturn("java:S2068")
+        whenever(hotspotDto.severityMode).thenReturn(Either.forLeft(StandardModeDetails(IssueSeverity.BLOCKER, RuleType.SECURITY_HOTSPOT)))
+        whenever(hotspotDto.vulnerabilityProbability).thenReturn(VulnerabilityProbability.HIGH)
+        return LiveSecurityHotspot(module, hotspotDto, file, emptyList())
+    }
+
+}
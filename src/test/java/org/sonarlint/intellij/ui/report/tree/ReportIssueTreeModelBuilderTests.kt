@@ -0,0 +1,98 @@
+/*
+ * SonarLint for IntelliJ IDEA
+ * Copyright (C) SonarSource Sàrl
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonarlint.intellij.ui.report.tree
+
+import com.intellij.openapi.vfs.VirtualFile
+import java.util.UUID
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+import org.sonarlint.intellij.AbstractSonarLintLightTests
+import org.sonarlint.intellij.finding.issue.LiveIssue
+import org.sonarlint.intellij.ui.nodes.FileNode
+import org.sonarsource.sonarlint.core.rpc.protocol.client.issue.RaisedIssueDto
+import org.sonarsource.sonarlint.core.rpc.protocol.common.Either
+import org.sonarsource.sonarlint.core.rpc.protocol.common.IssueSeverity
+import org.sonarsource.sonarlint.core.rpc.protocol.common.RuleType
+import org.sonarsource.sonarlint.core.rpc.protocol.common.StandardModeDetails
+
+class ReportIssueTreeModelBuilderTests : AbstractSonarLintLightTests() {
+
+    private val builder by lazy { ReportIssueTreeModelBuilder(project, isOld = false) }
+
+    @Test
+    fun should_insert_updated_files_in_name_order() {
+        val first = myFixture.addFileToProject("src/A.java", "class A {}").virtualFile
+        val second = myFixture.addFileToProject("src/B.java", "class B {}").virtualFile
+        val third = myFixture.addFileToProject("src/C.java", "class C {}").virtualFile
+        builder.updateModel(mapOf(first to listOf(anIssue(first)), third to listOf(anIssue(third))))
+
+        val insertedNodes = builder.updateFiles(setOf(second), mapOf(second to listOf(anIssue(second), anIssue(second))))
+
+        assertThat(insertedNodes.map { it.file() }).containsExactly(second)
+        assertThat(displayedFiles()).containsExactly(first, second, third)
+        assertThat(displayedIssuesCount()).isEqualTo(4)
+    }
+
+    @Test
+    fun should_replace_the_nodes_of_updated_files_only() {
+        val first = myFixture.addFileToProject("src/A.java", "class A {}").virtualFile
+        val second = myFixture.addFileToProject("src/B.java", "class B {}").virtualFile
+        val firstNode = builder.updateFiles(setOf(first), mapOf(first to listOf(anIssue(first)))).single()
+        builder.updateFiles(setOf(second), mapOf(second to listOf(anIssue(second))))
+
+        builder.updateFiles(setOf(second), mapOf(second to listOf(anIssue(second), anIssue(second))))
+
+        assertThat(displayedFiles()).containsExactly(first, second)
+        assertThat(builder.model.getChild(builder.model.root, 0)).isSameAs(firstNode)
+        assertThat(displayedIssuesCount()).isEqualTo(3)
+    }
+
+    @Test
+    fun should_remove_the_nodes_of_files_without_issues_anymore() {
+        val file = myFixture.addFileToProject("src/A.java", "class A {}").virtualFile
+        builder.updateModel(mapOf(file to listOf(anIssue(file))))
+
+        val insertedNodes = builder.updateFiles(setOf(file), emptyMap())
+
+        assertThat(insertedNodes).isEmpty()
+        assertThat(displayedFiles()).isEmpty()
+    }
+
+    private fun displayedFileNodes(): List<FileNode> {
+        val root = builder.model.root
+        return (0 until builder.model.getChildCount(root)).map { builder.model.getChild(root, it) as FileNode }
+    }
+
+    private fun displayedFiles() = displayedFileNodes().map { it.file() }
+
+    private fun displayedIssuesCount() = displayedFileNodes().sumOf { it.childCount }
+
+    private fun anIssue(file: VirtualFile): LiveIssue {
+        val issueDto = mock<RaisedIssueDto>()
+        whenever(issueDto.id).thenReturn(UUID.randomUUID())
+        whenever(issueDto.primaryMessage).thenReturn("message")
+        whenever(issueDto.ruleKey).thenReturn("java:S1068")
+        whenever(issueDto.severityMode).thenReturn(Either.forLeft(StandardModeDetails(IssueSeverity.MAJOR, RuleType.CODE_SMELL)))
+        return LiveIssue(module, issueDto, file, emptyList())
+    }
+
+}